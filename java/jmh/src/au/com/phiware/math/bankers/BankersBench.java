@@ -0,0 +1,377 @@
+/**
+ * 
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.AdaptiveArithmetic;
+import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.Limbs;
+
+/**
+ * Throughput and latency of {@link Bankers#to(Number)},
+ * {@link Bankers#from(Number)} and {@link Bankers#next(Number)} for each
+ * arithmetic at several lengths, once the triangle is warm. Each operation
+ * cycles through the same random samples.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BankersBench {
+	static final int SAMPLES = 1 << 10;
+
+	public abstract static class Samples<V extends Number> {
+		Bankers<V> bankers;
+		Number[] ranks, bits;
+		int i;
+
+		void setup(Bankers<V> bankers) {
+			BitArithmetic<V> a = bankers.getArithmetic();
+			Random random = new Random(bankers.length());
+			this.bankers = bankers;
+			ranks = new Number[SAMPLES];
+			bits = new Number[SAMPLES];
+			for (int s = 0; s < SAMPLES; s++) {
+				V rank = a.zero();
+				for (int j = 0; j < bankers.length(); j++)
+					if (random.nextBoolean())
+						rank = a.setBit(rank, j);
+				ranks[s] = rank;
+				bits[s] = bankers.to(rank);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		V rank() {
+			return (V) ranks[i++ & (SAMPLES - 1)];
+		}
+
+		@SuppressWarnings("unchecked")
+		V bits() {
+			return (V) bits[i++ & (SAMPLES - 1)];
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ByteSamples extends Samples<Byte> {
+		@Param({"4", "7"})
+		int length;
+
+		@Setup
+		public void setup() throws ClassNotFoundException {
+			setup(new Bankers<Byte>(length){});
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class IntegerSamples extends Samples<Integer> {
+		@Param({"16", "24", "31"})
+		int length;
+
+		@Setup
+		public void setup() throws ClassNotFoundException {
+			setup(new Bankers<Integer>(length){});
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LongSamples extends Samples<Long> {
+		@Param({"32", "48", "63"})
+		int length;
+
+		@Setup
+		public void setup() throws ClassNotFoundException {
+			setup(new Bankers<Long>(length){});
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class BigIntegerSamples extends Samples<BigInteger> {
+		@Param({"64", "80", "128", "512"})
+		int length;
+
+		@Setup
+		public void setup() throws ClassNotFoundException {
+			setup(new Bankers<BigInteger>(length){});
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class AdaptiveSamples extends Samples<Number> {
+		@Param({"64", "80", "128"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new Bankers<Number>(length, Binomials.sharedBinomFactory(AdaptiveArithmetic.getInstance())){});
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class AdaptiveBankersSamples extends Samples<Number> {
+		@Param({"64", "80", "128"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new AdaptiveBankers(length));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LimbsSamples extends Samples<Limbs> {
+		@Param({"128", "512"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new LimbsBankers(length));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class IntBankersSamples extends Samples<Integer> {
+		@Param({"16", "31"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new IntBankers(length));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class TableBankersSamples extends Samples<Integer> {
+		@Param({"16", "24"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new TableBankers(length));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MappedTableSamples extends Samples<Long> {
+		@Param({"25"})
+		int length;
+
+		Path path;
+
+		@Setup
+		public void setup() throws IOException {
+			path = Files.createTempFile("bankers", ".table");
+			MappedTableBankers.generate(path, length);
+			setup(new MappedTableBankers(path));
+		}
+
+		@TearDown
+		public void delete() throws IOException {
+			((MappedTableBankers) bankers).close();
+			Files.delete(path);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LongBankersSamples extends Samples<Long> {
+		@Param({"32", "63"})
+		int length;
+
+		@Setup
+		public void setup() {
+			setup(new LongBankers(length));
+		}
+	}
+
+	@Benchmark
+	public Byte byteTo(ByteSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Byte byteFrom(ByteSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Byte byteNext(ByteSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public Integer integerTo(IntegerSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Integer integerFrom(IntegerSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Integer integerNext(IntegerSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public Long longTo(LongSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Long longFrom(LongSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Long longNext(LongSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerTo(BigIntegerSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerFrom(BigIntegerSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerNext(BigIntegerSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public Number adaptiveTo(AdaptiveSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Number adaptiveFrom(AdaptiveSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Number adaptiveNext(AdaptiveSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public Number adaptiveBankersTo(AdaptiveBankersSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Number adaptiveBankersFrom(AdaptiveBankersSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Limbs limbsTo(LimbsSamples s) {
+		return s.bankers.to(s.rank());
+	}
+
+	@Benchmark
+	public Limbs limbsFrom(LimbsSamples s) {
+		return s.bankers.from(s.bits());
+	}
+
+	@Benchmark
+	public Limbs limbsNext(LimbsSamples s) {
+		return s.bankers.next(s.bits());
+	}
+
+	@Benchmark
+	public int intBankersTo(IntBankersSamples s) {
+		return ((IntBankers) s.bankers).to(s.rank().intValue());
+	}
+
+	@Benchmark
+	public int intBankersFrom(IntBankersSamples s) {
+		return ((IntBankers) s.bankers).from(s.bits().intValue());
+	}
+
+	@Benchmark
+	public int tableBankersTo(TableBankersSamples s) {
+		return ((IntBankers) s.bankers).to(s.rank().intValue());
+	}
+
+	@Benchmark
+	public int tableBankersFrom(TableBankersSamples s) {
+		return ((IntBankers) s.bankers).from(s.bits().intValue());
+	}
+
+	@Benchmark
+	public int intBankersNext(IntBankersSamples s) {
+		return ((IntBankers) s.bankers).next(s.bits().intValue());
+	}
+
+	@Benchmark
+	public long longBankersTo(LongBankersSamples s) {
+		return ((LongBankers) s.bankers).to(s.rank().longValue());
+	}
+
+	@Benchmark
+	public long longBankersFrom(LongBankersSamples s) {
+		return ((LongBankers) s.bankers).from(s.bits().longValue());
+	}
+
+	@Benchmark
+	public long mappedTableTo(MappedTableSamples s) {
+		return ((LongBankers) s.bankers).to(s.rank().longValue());
+	}
+
+	@Benchmark
+	public long mappedTableFrom(MappedTableSamples s) {
+		return ((LongBankers) s.bankers).from(s.bits().longValue());
+	}
+
+	@Benchmark
+	public long longBankersNext(LongBankersSamples s) {
+		return ((LongBankers) s.bankers).next(s.bits().longValue());
+	}
+
+	/**
+	 * Runs the benchmarks selected by argv, as org.openjdk.jmh.Main would,
+	 * with the GC profiler so that allocation per operation is reported.
+	 */
+	public static void main(String[] argv) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(argv))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
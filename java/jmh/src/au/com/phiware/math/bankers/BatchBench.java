@@ -0,0 +1,148 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the batch conversions of {@link LongBankers},
+ * {@link IntBankers} and {@link Bankers}, against a loop of their scalar
+ * conversions, over the same batch of random ranks.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBench {
+	static final int BATCH = 1 << 12;
+
+	@Param({"31", "63"})
+	int length;
+
+	LongBankers longs;
+	IntBankers ints;
+	Bankers<BigInteger> big;
+	long[] longRanks, longBits, longOut;
+	int[] intRanks, intBits, intOut;
+	BigInteger[] bigRanks, bigOut;
+
+	@Setup
+	public void setup() throws ClassNotFoundException {
+		Random random = new Random(length);
+		longs = new LongBankers(length);
+		ints = new IntBankers(Math.min(length, IntBankers.MAX_LENGTH));
+		big = new Bankers<BigInteger>(length){};
+		longRanks = new long[BATCH];
+		intRanks = new int[BATCH];
+		bigRanks = new BigInteger[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			longRanks[i] = random.nextLong() & ((1L << length) - 1);
+			intRanks[i] = (int) longRanks[i] & ((1 << ints.length()) - 1);
+			bigRanks[i] = BigInteger.valueOf(longRanks[i]);
+		}
+		longBits = new long[BATCH];
+		longs.to(longRanks, longBits);
+		intBits = new int[BATCH];
+		ints.to(intRanks, intBits);
+		longOut = new long[BATCH];
+		intOut = new int[BATCH];
+		bigOut = new BigInteger[BATCH];
+		big.prewarm();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long[] longScalarTo() {
+		for (int i = 0; i < BATCH; i++)
+			longOut[i] = longs.to(longRanks[i]);
+		return longOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long[] longBatchTo() {
+		longs.to(longRanks, longOut);
+		return longOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long[] longScalarFrom() {
+		for (int i = 0; i < BATCH; i++)
+			longOut[i] = longs.from(longBits[i]);
+		return longOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long[] longBatchFrom() {
+		longs.from(longBits, longOut);
+		return longOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] intScalarTo() {
+		for (int i = 0; i < BATCH; i++)
+			intOut[i] = ints.to(intRanks[i]);
+		return intOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] intBatchTo() {
+		ints.to(intRanks, intOut);
+		return intOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] intScalarFrom() {
+		for (int i = 0; i < BATCH; i++)
+			intOut[i] = ints.from(intBits[i]);
+		return intOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] intBatchFrom() {
+		ints.from(intBits, intOut);
+		return intOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public BigInteger[] bigScalarTo() {
+		for (int i = 0; i < BATCH; i++)
+			bigOut[i] = big.to(bigRanks[i]);
+		return bigOut;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public BigInteger[] bigBatchTo() {
+		big.to(bigRanks, bigOut);
+		return bigOut;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of the first {@link Bankers#to(Number)} of a new instance, which
+ * builds the triangle, in contrast to the warm measurements of
+ * {@link BankersBench}.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(5)
+public class ColdBankersBench {
+	@State(Scope.Thread)
+	public static class IntegerState {
+		@Param({"31"})
+		int length;
+		Bankers<Integer> bankers;
+
+		@Setup(Level.Iteration)
+		public void setup() throws ClassNotFoundException {
+			bankers = new Bankers<Integer>(length){};
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LongState {
+		@Param({"63"})
+		int length;
+		Bankers<Long> bankers;
+
+		@Setup(Level.Iteration)
+		public void setup() throws ClassNotFoundException {
+			bankers = new Bankers<Long>(length){};
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class BigIntegerState {
+		@Param({"128", "512"})
+		int length;
+		Bankers<BigInteger> bankers;
+
+		@Setup(Level.Iteration)
+		public void setup() throws ClassNotFoundException {
+			bankers = new Bankers<BigInteger>(length){};
+		}
+	}
+
+	@Benchmark
+	public Integer integerTo(IntegerState s) {
+		return s.bankers.to(Integer.MAX_VALUE >> 1);
+	}
+
+	@Benchmark
+	public Long longTo(LongState s) {
+		return s.bankers.to(Long.MAX_VALUE >> 1);
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerTo(BigIntegerState s) {
+		return s.bankers.to(BigInteger.ONE.shiftLeft(s.length - 1).subtract(BigInteger.ONE));
+	}
+
+	@Benchmark
+	public long longBankers(LongState s) {
+		return new LongBankers(s.length).to(Long.MAX_VALUE >> 1);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The time to encode the 2<sup>24</sup> Banker's numbers of length 24 with
+ * {@link BankersDump}, written to a channel that discards them, so that the
+ * disk is left out.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DumpBench {
+	static final int LENGTH = 24;
+
+	@Param({"BINARY", "TEXT", "DELTA"})
+	BankersDump.Format format;
+
+	BankersDump dump;
+	WritableByteChannel discard;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		dump = new BankersDump(new LongBankers(LENGTH), format);
+		discard = new WritableByteChannel() {
+			public int write(ByteBuffer src) {
+				int n = src.remaining();
+				src.position(src.limit());
+				return n;
+			}
+
+			public boolean isOpen() {
+				return true;
+			}
+
+			public void close() {
+			}
+		};
+	}
+
+	@Benchmark
+	public long write() throws IOException {
+		return dump.write(0, 1L << LENGTH, discard);
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The time to transcode a file of 2<sup>22</sup> random ranks to Banker's
+ * numbers with {@link BankersTranscoder}, to compare with the bandwidth of
+ * the disk.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranscoderBench {
+	static final int RECORDS = 1 << 22;
+
+	@Param({"table", "int", "long"})
+	String bankers;
+
+	BankersTranscoder<?> transcoder;
+	Path in, out;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		int length;
+		if ("table".equals(bankers)) {
+			length = 24;
+			transcoder = new BankersTranscoder<Integer>(new TableBankers(length));
+		} else if ("int".equals(bankers)) {
+			length = 31;
+			transcoder = new BankersTranscoder<Integer>(new IntBankers(length));
+		} else {
+			length = 63;
+			transcoder = new BankersTranscoder<Long>(new LongBankers(length));
+		}
+		int width = transcoder.getRecordWidth();
+		Random random = new Random(length);
+		ByteBuffer ranks = ByteBuffer.allocate(RECORDS * width).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < RECORDS; i++)
+			if (width == Integer.BYTES)
+				ranks.putInt(random.nextInt() & ((1 << length) - 1));
+			else
+				ranks.putLong(random.nextLong() & Long.MAX_VALUE);
+		in = Files.createTempFile("ranks", ".bin");
+		out = Files.createTempFile("bits", ".bin");
+		Files.write(in, ranks.array());
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.delete(in);
+		Files.delete(out);
+	}
+
+	@Benchmark
+	public long to() throws IOException {
+		return transcoder.to(in, out);
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+
+/**
+ * Building, reading and summing rows of the triangle with each
+ * {@link BinomFactory}. The cold benchmark starts from an empty factory at
+ * every iteration.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinomBench {
+	@Param({"graph", "array"})
+	String factory;
+
+	@Param({"64", "256"})
+	int n;
+
+	BinomFactory<BigInteger> warm, cold;
+
+	BinomFactory<BigInteger> newFactory() {
+		if ("array".equals(factory))
+			return new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+		return new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+	}
+
+	@Setup(Level.Trial)
+	public void setupWarm() {
+		warm = newFactory();
+		warm.createBinom(n, n / 2).sum();
+	}
+
+	@Setup(Level.Iteration)
+	public void setupCold() {
+		cold = newFactory();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Measurement(iterations = 20)
+	public BigInteger coldValue() {
+		return cold.createBinom(n, n / 2).value();
+	}
+
+	@Benchmark
+	public BigInteger warmValue() {
+		return warm.createBinom(n, n / 2).value();
+	}
+
+	@Benchmark
+	public BigInteger warmSum() {
+		return warm.createBinom(n, n / 2).sum();
+	}
+
+	/**
+	 * Walks from n choose n/2 back to the edge, as {@link au.com.phiware.math.bankers.Bankers#to(Number)} does.
+	 */
+	@Benchmark
+	public BigInteger warmWalk() {
+		BinomCursor<BigInteger> cursor = warm.createBinom(n, n / 2).cursor();
+		BigInteger v = cursor.value();
+		while (cursor.moveBack() && cursor.moveDown())
+			v = cursor.value();
+		return v;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.phiware.math.bankers.Bankers;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+
+/**
+ * The time from a new factory to the first {@link Bankers#to(Number)} of
+ * its length, either building the triangle as it is reached or loading
+ * it from a snapshot first.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(5)
+@State(Scope.Benchmark)
+public class StartupBench {
+	@Param({"graph", "array"})
+	String factory;
+
+	@Param({"512"})
+	int length;
+
+	Path snapshot;
+	BigInteger rank;
+
+	@Setup(Level.Trial)
+	public void save() throws IOException {
+		snapshot = Files.createTempFile("binom", ".snapshot");
+		if ("array".equals(factory))
+			new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance()).save(snapshot, length);
+		else
+			new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance()).save(snapshot, length);
+		rank = BigInteger.ONE.shiftLeft(length - 1).subtract(BigInteger.ONE);
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.delete(snapshot);
+	}
+
+	@Benchmark
+	public BigInteger build() throws ClassNotFoundException {
+		BinomFactory<BigInteger> binoms;
+		if ("array".equals(factory))
+			binoms = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+		else
+			binoms = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+		return new Bankers<BigInteger>(length, binoms){}.to(rank);
+	}
+
+	@Benchmark
+	public BigInteger load() throws IOException, ClassNotFoundException {
+		BinomFactory<BigInteger> binoms;
+		if ("array".equals(factory)) {
+			BinomArray<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+			array.load(snapshot);
+			binoms = array;
+		} else {
+			BinomGraph<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+			graph.load(snapshot);
+			binoms = graph;
+		}
+		return new Bankers<BigInteger>(length, binoms){}.to(rank);
+	}
+}
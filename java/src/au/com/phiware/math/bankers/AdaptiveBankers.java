@@ -0,0 +1,257 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import au.com.phiware.math.binom.BinomMetrics.Operation;
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.AdaptiveArithmetic;
+
+/**
+ * A {@link Bankers} of the {@link AdaptiveArithmetic}, for bit strings that
+ * are too long for {@link LongBankers}. The binomial coefficients are held in
+ * a folded half-triangle of primitive <code>long</code>s, as LongBankers,
+ * except those that do not fit, which are held as BigIntegers beside it. The
+ * walks of {@link #to(Number)} and {@link #from(Number)} gather the
+ * coefficients that fit in a long and keep the remainder, or the partial
+ * rank, in a long once it fits, so that they only touch a BigInteger for the
+ * few coefficients at the top of a long row.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class AdaptiveBankers extends Bankers<Number> {
+	/**
+	 * Beyond which almost every coefficient is a BigInteger, and
+	 * Bankers&lt;BigInteger&gt; is as quick.
+	 */
+	public static final int MAX_LENGTH = 1024;
+
+	/**
+	 * m choose j, for m &lt; length and j &lt;= m / 2, at
+	 * {@link LongBankers#fold(int, int)}, or -1 if it does not fit.
+	 */
+	private final long[] choose;
+	/**
+	 * The coefficients that do not fit in choose, at the same index.
+	 */
+	private final BigInteger[] overflow;
+	/**
+	 * The rank of the first Banker's number with w ones, at index w.
+	 */
+	private final Number[] firstRank;
+	private final Number mask;
+
+	public AdaptiveBankers(int length) {
+		super(length, Binomials.sharedBinomFactory(AdaptiveArithmetic.getInstance()));
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+		AdaptiveArithmetic a = getArithmetic();
+		mask = a.subtract(a.shiftLeft(1L, length), 1L);
+
+		choose = new long[LongBankers.fold(length, 0)];
+		overflow = new BigInteger[choose.length];
+		for (int m = 0; m < length; m++)
+			for (int j = 0; j <= m / 2; j++) {
+				int i = LongBankers.fold(m, j);
+				Number binom = j == 0 ? 1L : a.add(choose(m - 1, j - 1), choose(m - 1, j));
+				if (binom instanceof BigInteger) {
+					choose[i] = -1;
+					overflow[i] = (BigInteger) binom;
+				} else
+					choose[i] = binom.longValue();
+			}
+
+		firstRank = new Number[length + 1];
+		firstRank[0] = 0L;
+		Number binom = 1L;
+		for (int w = 1; w <= length; w++) {
+			firstRank[w] = a.add(firstRank[w - 1], binom);
+			binom = w < length ? a.add(choose(length - 1, w - 1), choose(length - 1, w)) : 1L;
+		}
+	}
+
+	@Override
+	public AdaptiveArithmetic getArithmetic() {
+		return (AdaptiveArithmetic) super.getArithmetic();
+	}
+
+	private Number choose(int m, int j) {
+		if (j > m / 2)
+			j = m - j;
+		int i = LongBankers.fold(m, j);
+		return choose[i] < 0 ? overflow[i] : choose[i];
+	}
+
+	@Override
+	public Number firstRankOfWeight(int k) {
+		if (k < 0 || k > length())
+			throw new IllegalArgumentException("Weight, "+k+", must be between 0 and "+length()+".");
+		return firstRank[k];
+	}
+
+	@Override
+	public int weightOfRank(Number r) {
+		AdaptiveArithmetic a = getArithmetic();
+		if (a.testBit(r, length() - 1))
+			return length() - weight(a.xor(r, mask), length() / 2);
+		return weight(r, length() / 2);
+	}
+
+	/**
+	 * Binary search the first ranks of weights up to max.
+	 */
+	private int weight(Number v, int max) {
+		AdaptiveArithmetic a = getArithmetic();
+		int w = 0;
+		while (w < max) {
+			int mid = (w + max + 1) >>> 1;
+			if (a.compare(firstRank[mid], v) <= 0)
+				w = mid;
+			else
+				max = mid - 1;
+		}
+		return w;
+	}
+
+	@Override
+	public Number to(Number v) {
+		ConversionEvent event = start();
+		Number result = walkTo(v);
+		timed(event, Operation.TO, 1);
+		return result;
+	}
+
+	private Number walkTo(Number v) {
+		AdaptiveArithmetic a = getArithmetic();
+		boolean flip = a.testBit(v, length() - 1);
+		if (flip)
+			v = a.xor(v, mask);
+		long[] words = new long[(length() + Long.SIZE - 1) / Long.SIZE];
+
+		if (a.signum(v) != 0) {
+			int w = weight(v, length() / 2);
+			Number r = a.subtract(v, firstRank[w]);
+			long e = r.longValue(), d = 0;
+			BigInteger big = r instanceof BigInteger ? (BigInteger) r : null;
+
+			for (int i = 0, j = w - 1; j >= 0; i++) {
+				int m = length() - 1 - i;
+				int k = LongBankers.fold(m, j > m / 2 ? m - j : j);
+				long binom = choose[k];
+				if (big != null && binom >= 0 && big.bitLength() > Long.SIZE && d + binom >= 0) {
+					d += binom;
+					continue;
+				}
+				if (d != 0) {
+					big = big.subtract(BigInteger.valueOf(d));
+					d = 0;
+					if (big.bitLength() < Long.SIZE) {
+						e = big.longValue();
+						big = null;
+					}
+				}
+				boolean greater;
+				if (big == null)
+					greater = binom < 0 || binom > e;
+				else
+					greater = binom < 0 && overflow[k].compareTo(big) > 0;
+				if (greater) {
+					words[i >>> 6] |= 1L << i;
+					j--;
+				} else if (big == null)
+					e -= binom;
+				else {
+					big = big.subtract(binom < 0 ? overflow[k] : BigInteger.valueOf(binom));
+					if (big.bitLength() < Long.SIZE) {
+						e = big.longValue();
+						big = null;
+					}
+				}
+			}
+		}
+
+		if (flip) {
+			for (int i = 0; i < words.length; i++)
+				words[i] = ~words[i];
+			if (length() % Long.SIZE != 0)
+				words[words.length - 1] &= (1L << length()) - 1;
+		}
+		return valueOf(words);
+	}
+
+	/**
+	 * @return the non-negative integer of the little-endian words, as a Long if it fits
+	 */
+	private static Number valueOf(long[] words) {
+		int n = words.length;
+		while (n > 1 && words[n - 1] == 0)
+			n--;
+		if (n == 1 && words[0] >= 0)
+			return words[0];
+		ByteBuffer magnitude = ByteBuffer.allocate(n * 8);
+		while (n > 0)
+			magnitude.putLong(words[--n]);
+		return new BigInteger(1, magnitude.array());
+	}
+
+	@Override
+	public Number from(Number b) {
+		ConversionEvent event = start();
+		Number result = walkFrom(b);
+		timed(event, Operation.FROM, 1);
+		return result;
+	}
+
+	private Number walkFrom(Number b) {
+		AdaptiveArithmetic a = getArithmetic();
+		int j = a.bitCount(b);
+
+		if (j == 0)
+			return 0L;
+
+		Number r = firstRank[j--];
+		long v = r.longValue();
+		BigInteger big = r instanceof BigInteger ? (BigInteger) r : null;
+		long bits = b.longValue();
+		BigInteger bigBits = b instanceof BigInteger ? (BigInteger) b : null;
+
+		if (big != null)
+			v = 0;
+		for (int i = 0; j >= 0; i++)
+			if (bigBits == null ? i < Long.SIZE && (bits & 1L << i) != 0 : bigBits.testBit(i))
+				j--;
+			else {
+				int m = length() - 1 - i;
+				int k = LongBankers.fold(m, j > m / 2 ? m - j : j);
+				long binom = choose[k];
+				if (binom < 0)
+					big = big == null ? overflow[k] : big.add(overflow[k]);
+				else if (v + binom >= 0)
+					v += binom;
+				else {
+					big = big == null ? BigInteger.valueOf(v) : big.add(BigInteger.valueOf(v));
+					v = binom;
+				}
+			}
+
+		if (big == null)
+			return v;
+		return AdaptiveArithmetic.valueOf(big.add(BigInteger.valueOf(v)));
+	}
+
+	@Override
+	public void to(Number[] ranks, Number[] out) {
+		for (int i = 0; i < ranks.length; i++)
+			out[i] = to(ranks[i]);
+	}
+
+	@Override
+	public void from(Number[] bits, Number[] out) {
+		for (int i = 0; i < bits.length; i++)
+			out[i] = from(bits[i]);
+	}
+}
@@ -3,31 +3,61 @@
  */
 package au.com.phiware.math.bankers;
 
-import java.lang.ref.SoftReference;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import au.com.phiware.math.binom.Binom;
+import au.com.phiware.math.binom.BinomCache;
+import au.com.phiware.math.binom.BinomCursor;
 import au.com.phiware.math.binom.BinomFactory;
+import au.com.phiware.math.binom.BinomMetrics;
+import au.com.phiware.math.binom.BinomMetrics.Operation;
 import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.Accumulator;
 import au.com.phiware.math.ring.ArithmeticFactory;
 import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
 
 /**
+ * Instances are safe to share between threads, provided the
+ * {@link BinomFactory} is (as are those of {@link Binomials}). Instances
+ * that are not given a factory share the one triangle of their arithmetic,
+ * whatever their length; see {@link Binomials#sharedBinomFactory(BitArithmetic)}.
+ *
  * @author Corin Lawson <me@corinlawson.com.au>
  *
  */
 public abstract class Bankers<V extends Number> {
 	private static final Logger log = LoggerFactory.getLogger(Bankers.class);
-	private BinomFactory<V> binomFactory;
+	private final BinomFactory<V> binomFactory;
 	private final int length;
 	private final V mask;
+	/**
+	 * Whether the binoms hold primitive values, which the walks then read
+	 * with {@link Binom#longValue()} so as not to box them.
+	 */
+	private final boolean primitive;
+	/**
+	 * Ranges of fewer ranks are not split, as each part costs one {@link #to(Number)}.
+	 */
+	static final long MIN_SPLIT = 1 << 10;
 
 	private V constructMask() {
 		BitArithmetic<V> a = getArithmetic();
@@ -35,150 +65,555 @@ public abstract class Bankers<V extends Number> {
 		return a.add(topBit, a.subtract(topBit, a.one()));
 	}
 	public Bankers(int length, BinomFactory<V> binomFactory) {
+		this(length, binomFactory, BinomCache.<Integer, Binom<V>>soft());
+	}
+	/**
+	 * @param binomRow the cache of the binoms of row length, by column
+	 */
+	public Bankers(int length, BinomFactory<V> binomFactory, BinomCache<Integer, Binom<V>> binomRow) {
 		this.length = length;
 		this.binomFactory = binomFactory;
+		this.binomRow = binomRow;
 		this.mask = constructMask();
+		this.primitive = primitive(getArithmetic());
 	}
-	@SuppressWarnings("unchecked")
 	public Bankers(int length) throws ClassNotFoundException {
+		this(length, BinomCache.<Integer, Binom<V>>soft());
+	}
+	/**
+	 * @param binomRow the cache of the binoms of row length, by column
+	 */
+	@SuppressWarnings("unchecked")
+	public Bankers(int length, BinomCache<Integer, Binom<V>> binomRow) throws ClassNotFoundException {
 		this.length = length;
+		this.binomRow = binomRow;
 
 		ParameterizedType superType = (ParameterizedType) this.getClass().getGenericSuperclass();
 		while (!Bankers.class.equals(superType.getRawType()))
 			superType = (ParameterizedType) ((Class<?>) superType.getRawType()).getGenericSuperclass();
 		Type[] actualType = superType.getActualTypeArguments();
-		BitArithmetic<V> arithmetic = ArithmeticFactory.getBitArithmetic((Class<V>) actualType[0]);
+		BitArithmetic<V> arithmetic = ArithmeticFactory.getBitArithmetic((Class<V>) actualType[0], length);
 
 		if (length > arithmetic.maxBitLength())
 			throw new IllegalArgumentException("Length, "+length+", is too big. Try a different component class.");
 
-		binomFactory = Binomials.defaultBinomFactory(arithmetic);
+		binomFactory = Binomials.sharedBinomFactory(arithmetic);
 
 		this.mask = constructMask();
+		this.primitive = primitive(getArithmetic());
 	}
 
 	public BitArithmetic<V> getArithmetic() {
 		return binomFactory.getArithmetic();
 	}
 
+	private static boolean primitive(BitArithmetic<?> arithmetic) {
+		return arithmetic instanceof LongArithmetic
+		    || arithmetic instanceof IntegerArithmetic;
+	}
+
 	public int length() {
 		return length;
 	}
 
 	public V next(V b) {
-		BitArithmetic<V> a = getArithmetic();
+		ConversionEvent event = start();
+		V next = walkNext(b);
+		timed(event, Operation.NEXT, 1);
+		return next;
+	}
 
-		V next = a.zero();
-		int z = 0, i = length - 1;
-		
-		while (i >= 0 && a.testBit(b, i))
-			i--;
-		while (i >= 0 && !a.testBit(b, i)) {
-			z++;
-			i--;
-		}
-		
-		V passthru = a.subtract(
-					a.shiftLeft(a.one(), i + 1),
-					a.one()
-				);
-		
-		next = a.or(
-				next,
-				a.nand(
-					a.subtract(
-						a.shiftLeft(a.one(), length - z + 1),
-						a.one()
-					),
-					passthru
-				)
-			);
-		if (i > 0) {
-			passthru = a.shiftRight(passthru, 1);
-			next = a.or(next, a.and(b, passthru));
+	/**
+	 * Finds the highest zero (below the run of ones at the top of b) and the
+	 * highest one below that with {@link Accumulator#highestOneBit()},
+	 * rather than testing each bit; for the primitive arithmetics that is a
+	 * leading zero count and for BigInteger it is its bit length. The
+	 * Banker's number is built in the one accumulator of this thread. Each
+	 * step of the accumulator may touch every word of b, so this is linear in
+	 * the length, unlike the primitive next of LongBankers and IntBankers.
+	 */
+	private V walkNext(V b) {
+		Accumulator<V> next = scratch().b;
+
+		int zero = next.set(mask).nand(b).highestOneBit(), i = -1;
+		if (zero >= 0)
+			i = next.set(b).clearBits(zero, length).highestOneBit();
+		int z = zero - i;
+
+		return next.set(b)
+			.clearBits(Math.max(i, 0), length)
+			.setBits(i + 1, length - z + 1)
+			.value();
+	}
+
+	/**
+	 * The accumulators of one thread's conversions.
+	 */
+	private class Scratch {
+		final Accumulator<V> b = getArithmetic().newAccumulator();
+		final Accumulator<V> e = getArithmetic().newAccumulator();
+	}
+
+	private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
 		}
-		
-		return next;
+	};
+
+	private Scratch scratch() {
+		return scratch.get();
 	}
+
 	
-	private Map<Integer, SoftReference<Binom<V>>> binomRow = new HashMap<Integer, SoftReference<Binom<V>>>();
+	private final BinomCache<Integer, Binom<V>> binomRow;
 	private Binom<V> getBinom(int k) {
-		Binom<V> binom = null;
-		if (binomRow.containsKey(k))
-			binom = binomRow.get(k).get();
+		Binom<V> binom = binomRow.get(k);
+		BinomMetrics metrics = Binomials.getMetrics();
+		if (metrics != null)
+			metrics.rowLookup(binom != null);
 		if (binom == null) {
+			RowLoadEvent event = new RowLoadEvent();
+			event.begin();
 			binom = binomFactory.createBinom(length, k);
 			//binom = new au.com.phiware.math.binom.BinomCounter<V>(arithmetic, length, k);
-			binomRow.put(k, new SoftReference<Binom<V>>(binom));
+			Binom<V> cached = binomRow.putIfAbsent(k, binom);
+			if (cached != null)
+				binom = cached;
+			event.end();
+			if (event.shouldCommit()) {
+				event.length = length;
+				event.k = k;
+				event.reload = !loadedRows.add(k);
+				event.commit();
+			}
 		}
 		return binom;
 	}
+
+	/**
+	 * The columns, at most length + 1, of the rows that have been loaded
+	 * while {@link RowLoadEvent}s were recorded, so that a row that is loaded
+	 * again is known to have been evicted. Nothing is added while no
+	 * recording is running.
+	 */
+	private final Set<Integer> loadedRows = ConcurrentHashMap.<Integer>newKeySet();
+
+	/**
+	 * @return the cache of the binoms of row length, by column
+	 */
+	public BinomCache<Integer, Binom<V>> getRowCache() {
+		return binomRow;
+	}
 	
+	/**
+	 * The sums of row length of the triangle, n choose i for i &lt; w, at
+	 * index w; built on first use.
+	 */
+	private volatile V[] firstRanks;
+
+	@SuppressWarnings("unchecked")
+	private V[] firstRanks() {
+		V[] firstRanks = this.firstRanks;
+		if (firstRanks == null) {
+			BitArithmetic<V> a = getArithmetic();
+			BinomCursor<V> cursor = binomFactory.createBinom(length, 0).cursor();
+			V sum = a.zero();
+			firstRanks = (V[]) new Number[length + 1];
+			for (int w = 0; w <= length; w++) {
+				firstRanks[w] = sum;
+				sum = a.add(sum, cursor.value());
+				cursor.moveRight();
+			}
+			this.firstRanks = firstRanks;
+		}
+		return firstRanks;
+	}
+
+	/**
+	 * Compute the triangle and the index that this instance needs, so that
+	 * the first conversion is no slower than the rest.
+	 */
+	public void prewarm() {
+		binomFactory.prewarm(length);
+		firstRanks();
+	}
+
+	/**
+	 * @return the rank of the first Banker's number with k ones
+	 */
+	public V firstRankOfWeight(int k) {
+		if (k < 0 || k > length)
+			throw new IllegalArgumentException("Weight, "+k+", must be between 0 and "+length+".");
+		return firstRanks()[k];
+	}
+
+	/**
+	 * @return the number of ones of the Banker's number of rank r
+	 */
+	public int weightOfRank(V r) {
+		BitArithmetic<V> a = getArithmetic();
+		Accumulator<V> folded = scratch().e.set(r);
+		if (a.testBit(r, length - 1))
+			return length - weightOfRank(folded.xor(mask), length / 2);
+		return weightOfRank(folded, length / 2);
+	}
+
+	/**
+	 * Binary search the first ranks of weights up to max, which are all less
+	 * than 2<sup>length - 1</sup> when max is length / 2.
+	 */
+	private int weightOfRank(Accumulator<V> r, int max) {
+		V[] firstRanks = firstRanks();
+		int w = 0;
+		while (w < max) {
+			int mid = (w + max + 1) >>> 1;
+			if (r.compareTo(firstRanks[mid]) >= 0)
+				w = mid;
+			else
+				max = mid - 1;
+		}
+		return w;
+	}
+
 	public V to(V a) {
 		return to(a, 0);
 	}
 	
 	public V to(V v, int k) {
+		ConversionEvent event = start();
+		V result = walkTo(v, k);
+		timed(event, Operation.TO, 1);
+		return result;
+	}
+
+	/**
+	 * The rank is folded, and the Banker's number is built, in the
+	 * accumulators of this thread, so that only the result is allocated.
+	 */
+	private V walkTo(V v, int k) {
 		BitArithmetic<V> a = getArithmetic();
-		V e, b = a.zero();
+		Scratch scratch = scratch();
+		Accumulator<V> e = scratch.e.set(v), b = scratch.b.set(a.zero());
+		boolean flip = a.testBit(v, length() - 1);
 		
-		if (a.testBit(v, length() - 1)) {
-			v = a.xor(v, mask);
-			b = a.xor(to(v), mask);
-		} else {
-			if (v.equals(b)) return b;
+		if (flip)
+			e.xor(mask);
+		if (e.compareTo(a.zero()) != 0) {
+			Binom<V> binom;
+			if (k == 0 || flip) {
+				int w = weightOfRank(e, length / 2);
+				binom = getBinom(w - 1);
+				e.subtract(firstRanks()[w]);
+			} else
+				binom = getBinom(k);
+
+			to(binom, e, b);
+		}
+		if (flip)
+			b.xor(mask);
 		
-			Binom<V> binom = getBinom(k);
-			if (k == 0) {
-				while (a.compare(binom.right().sum(), v) <= 0)
-					binom = binom.right();
-				e = a.subtract(v, binom.sum());
-			} else	e = v;
-
-			debug(binom);
-			binom = binom.down();
-			for (int i = 0; binom != null; i++) {
-				debug(binom);
-				if (a.compare(binom.value(), e) > 0) {
-					b = a.setBit(b, i);
-					binom = binom.back();
-				} else {
-					e = a.subtract(e, binom.value());
-					binom = binom.down();
-				}
+		return b.value();
+	}
+
+	/**
+	 * Walk down from binom to the e-th Banker's number of its weight class,
+	 * setting its bits in b, which is zero.
+	 */
+	protected void to(Binom<V> binom, Accumulator<V> e, Accumulator<V> b) {
+		debug(binom);
+		BinomCursor<V> cursor = binom.cursor();
+		boolean more = cursor.moveDown();
+		for (int i = 0; more; i++) {
+			debug(cursor);
+			if (primitive ? e.compareTo(cursor.longValue()) < 0 : e.compareTo(cursor.value()) < 0) {
+				b.setBit(i);
+				more = cursor.moveBack();
+			} else {
+				if (primitive)
+					e.subtract(cursor.longValue());
+				else
+					e.subtract(cursor.value());
+				more = cursor.moveDown();
 			}
 		}
-		
-		return b;
+	}
+
+	public void to(V[] ranks, V[] out) {
+		ConversionEvent event = start();
+		walkTo(ranks, out);
+		timed(event, Operation.TO, ranks.length);
+	}
+
+	/**
+	 * Convert each of ranks into out, at the same index; out may be ranks.
+	 * The ranks are bucketed by weight class so that the row of each class
+	 * is looked up once per call, rather than once per rank.
+	 */
+	private void walkTo(V[] ranks, V[] out) {
+		BitArithmetic<V> a = getArithmetic();
+		V[] folded = Arrays.copyOf(ranks, ranks.length);
+		boolean[] flipped = new boolean[ranks.length];
+		int[] starts = new int[length / 2 + 2], order = new int[ranks.length];
+		Scratch scratch = scratch();
+
+		for (int i = 0; i < ranks.length; i++) {
+			if (flipped[i] = a.testBit(ranks[i], length() - 1))
+				folded[i] = a.xor(ranks[i], mask);
+			order[i] = weightOfRank(scratch.e.set(folded[i]), length / 2);
+		}
+		order = sortByWeight(order, starts);
+
+		V zero = a.zero();
+		V[] firstRanks = firstRanks();
+		for (int w = 0; w <= length / 2; w++) {
+			Binom<V> binom = starts[w] < starts[w + 1] && w > 0 ? getBinom(w - 1) : null;
+			for (int p = starts[w]; p < starts[w + 1]; p++) {
+				int i = order[p];
+				Accumulator<V> b = scratch.b.set(zero);
+				if (binom != null)
+					to(binom, scratch.e.set(folded[i]).subtract(firstRanks[w]), b);
+				if (flipped[i])
+					b.xor(mask);
+				out[i] = b.value();
+			}
+		}
+	}
+
+	/**
+	 * Sort the indices of weights, each between 0 and starts.length - 2, by
+	 * weight, with a counting sort.
+	 * @param starts is filled with the index of the first of weight w, at
+	 * index w, and the number of weights at the end
+	 * @return the indices in ascending order of weight
+	 */
+	static int[] sortByWeight(int[] weights, int[] starts) {
+		Arrays.fill(starts, 0);
+		for (int w : weights)
+			starts[w + 1]++;
+		for (int w = 1; w < starts.length; w++)
+			starts[w] += starts[w - 1];
+		int[] order = new int[weights.length];
+		int[] next = starts.clone();
+		for (int i = 0; i < weights.length; i++)
+			order[next[weights[i]]++] = i;
+		return order;
+	}
+
+	/**
+	 * @return the whole Banker's sequence, in order
+	 */
+	public Stream<V> stream() {
+		BitArithmetic<V> a = getArithmetic();
+		return StreamSupport.stream(new Sequence(a.zero(), mask), false);
+	}
+
+	/**
+	 * @return the Banker's numbers at fromRank (inclusive) to toRank (exclusive)
+	 */
+	public Stream<V> stream(V fromRank, V toRank) {
+		BitArithmetic<V> a = getArithmetic();
+		if (a.compare(fromRank, toRank) >= 0)
+			return Stream.empty();
+		return StreamSupport.stream(new Sequence(fromRank, a.subtract(toRank, a.one())), false);
+	}
+
+	/**
+	 * Splits its range of ranks in half until it is traversed; the first
+	 * number is then found with {@link Bankers#to(Number)} and the rest with
+	 * {@link Bankers#next(Number)}.
+	 */
+	private class Sequence implements Spliterator<V> {
+		private V rank, last, bits;
+		/**
+		 * Only needed to find the end of a range that is too long to count.
+		 */
+		private V lastBits;
+		private long remaining;
+
+		Sequence(V rank, V last) {
+			this.rank = rank;
+			this.last = last;
+			this.remaining = size();
+		}
+
+		/**
+		 * @return the number of ranks in this range, or Long.MAX_VALUE if too many to count
+		 */
+		private long size() {
+			BitArithmetic<V> a = getArithmetic();
+			V size = a.subtract(last, rank);
+			return a.highestOneBit(size) < Long.SIZE - 2 ? size.longValue() + 1 : Long.MAX_VALUE;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super V> action) {
+			if (remaining == 0)
+				return false;
+			if (bits == null) {
+				bits = to(rank);
+				if (remaining == Long.MAX_VALUE)
+					lastBits = to(last);
+			} else if (bits.equals(lastBits))
+				return false;
+			else
+				bits = next(bits);
+			if (remaining != Long.MAX_VALUE)
+				remaining--;
+			action.accept(bits);
+			return true;
+		}
+
+		@Override
+		public Spliterator<V> trySplit() {
+			BitArithmetic<V> a = getArithmetic();
+			if (bits != null || remaining < MIN_SPLIT)
+				return null;
+			V mid = a.add(rank, a.shiftRight(a.subtract(last, rank), 1));
+			Sequence prefix = new Sequence(rank, mid);
+			rank = a.add(mid, a.one());
+			remaining = size();
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | IMMUTABLE
+			     | (remaining != Long.MAX_VALUE ? SIZED | SUBSIZED : 0);
+		}
 	}
 
 	public V from(V b) {
+		ConversionEvent event = start();
+		V result = walkFrom(b);
+		timed(event, Operation.FROM, 1);
+		return result;
+	}
+
+	private V walkFrom(V b) {
 		BitArithmetic<V> a = getArithmetic();
-		int n = 0, c = a.bitCount(b);
+		int c = a.bitCount(b);
 		
 		if (c == 0)
 			return a.zero();
 		
-		Binom<V> binom = getBinom(c - 1);
-		V v = binom.sum();
+		V v = from(getBinom(c - 1), scratch().e.set(firstRanks()[c]), b, c).value();
 		
+		log.debug("from {} to {}", b, v);
+		return v;
+	}
+
+	/**
+	 * Walk down from binom, the row of b's weight class, c, adding to v.
+	 */
+	protected Accumulator<V> from(Binom<V> binom, Accumulator<V> v, V b, int c) {
+		BitArithmetic<V> a = getArithmetic();
+		int n = 0;
+
 		debug(binom);
-		binom = binom.down();
-		while (binom != null && c > 0) {
-			debug(binom);
+		BinomCursor<V> cursor = binom.cursor();
+		boolean more = cursor.moveDown();
+		while (more && c > 0) {
+			debug(cursor);
 			if (a.testBit(b, n++)) {
-				binom = binom.back();
+				more = cursor.moveBack();
 				c--;
 			} else {
-				v = a.add(v, binom.value());
-				binom = binom.down();
+				if (primitive)
+					v.add(cursor.longValue());
+				else
+					v.add(cursor.value());
+				more = cursor.moveDown();
 			}
 		}
-		
-		log.debug("from {} to {}", b, v);
+
 		return v;
 	}
 
+	/**
+	 * Convert each of bits into out, at the same index; out may be bits.
+	 * The row of each weight class is looked up once per call, rather than
+	 * once per Banker's number.
+	 */
+	public void from(V[] bits, V[] out) {
+		ConversionEvent event = start();
+		walkFrom(bits, out);
+		timed(event, Operation.FROM, bits.length);
+	}
+
+	private void walkFrom(V[] bits, V[] out) {
+		BitArithmetic<V> a = getArithmetic();
+		@SuppressWarnings("unchecked")
+		Binom<V>[] rows = (Binom<V>[]) new Binom<?>[length + 1];
+		V[] firstRanks = firstRanks();
+		Accumulator<V> v = scratch().e;
+
+		for (int i = 0; i < bits.length; i++) {
+			V b = bits[i];
+			int c = a.bitCount(b);
+			if (c == 0) {
+				out[i] = a.zero();
+				continue;
+			}
+			Binom<V> binom = rows[c];
+			if (binom == null)
+				binom = rows[c] = getBinom(c - 1);
+			out[i] = from(binom, v.set(firstRanks[c]), b, c).value();
+		}
+	}
+
+	/**
+	 * Fill out with the Banker's numbers that succeed b.
+	 */
+	public void next(V b, V[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < out.length; i++)
+			out[i] = b = walkNext(b);
+		timed(event, Operation.NEXT, out.length);
+	}
+
+	/**
+	 * Begin to time a conversion, if there are {@link BinomMetrics} installed
+	 * or {@link ConversionEvent}s are enabled.
+	 * @return the event to pass to {@link #timed(ConversionEvent, Operation, int)},
+	 * or null if the conversion is not timed
+	 */
+	final ConversionEvent start() {
+		BinomMetrics metrics = Binomials.getMetrics();
+		if (metrics == null && !ConversionEvent.enabled())
+			return null;
+		ConversionEvent event = new ConversionEvent();
+		event.metrics = metrics;
+		event.start = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Report count conversions of operation, timed by event, to the
+	 * installed {@link BinomMetrics}, and commit event if it took longer
+	 * than its threshold.
+	 */
+	final void timed(ConversionEvent event, Operation operation, int count) {
+		if (event == null)
+			return;
+		if (event.metrics != null)
+			event.metrics.operation(operation, count, System.nanoTime() - event.start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation.name().toLowerCase();
+			event.length = length;
+			event.count = count;
+			event.arithmetic = getArithmetic().getClass();
+			event.commit();
+		}
+	}
+
 	private void debug(Binom<V> binom) {
 		if (log.isDebugEnabled()) {
 			char[] str = new char[binom.getRow() + 1];
@@ -195,60 +630,24 @@ public abstract class Bankers<V extends Number> {
 			if (argv.length > 0) {
 				int n = new Integer(argv[0]);
 				long m = 1L << n;
-				Bankers<Long> bankers = new Bankers<Long>(n){};
-				if (argv.length > 1 || argv[0].matches("[01]+")) {
-					for (int i = 0; i < argv.length; i++) {
-						if (argv[i].matches("0[01]+") || argv[i].matches("0b[01]+")
-								|| (argv[i].matches("1[01]+")
-										&& Long.parseLong(argv[i]) >= 1 << n)) {
-							String b = argv[i].replaceFirst("^0b", "");
-							Bankers<Long> bbankers = new Bankers<Long>(b.length()){};
-							System.out.println(
-								String.format(
-									"%"+((int) Math.log10(b.length()) + 1)+"d",
-									bbankers.from(Long.parseLong(b, 2))
-								)
-							);
-						} else {
-							if (i > 0) {
-								System.out.print(
-										String.format(
-											"%"+n+"s",
-											Long.toBinaryString(new Long(argv[i]))
-										).replaceAll("[ 0]", ".")
-										+ " : "
-									);
-								System.out.println(
-									String.format(
-										"%"+n+"s",
-										Long.toBinaryString(bankers.to(new Long(argv[i])))
-									).replaceAll("[ 0]", ".")
-								);
-							}
-						}
-					}
+				BankersStream stream = new BankersStream(n);
+				if (argv.length == 2 && "-".equals(argv[1])) {
+					stream.text(new BufferedReader(new InputStreamReader(System.in), 1 << 16),
+							new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+				} else if (argv.length > 1 || argv[0].matches("[01]+")) {
+					for (int i = 0; i < argv.length; i++)
+						if (i > 0 || stream.isBits(argv[i]))
+							System.out.println(stream.convert(argv[i]));
+				} else if (n > BankersDump.MAX_LENGTH) {
+					System.err.println("The Banker's sequence for length, "+n+", is too long to generate.");
 				} else {
-					long b = 0L;
 					System.out.println("Generating Banker's sequence for length, "+n+"...");
-					for (long i = 1; i < m; i++) {
-						b = bankers.to(i);
-						System.out.print(
-								String.format(
-									"%"+n+"s",
-									Long.toBinaryString(i)
-								).replaceAll("[ 0]", ".")
-								+ " : "
-							);
-						System.out.println(
-							String.format(
-								"%"+n+"s",
-								Long.toBinaryString(b)
-							).replaceAll("[ 0]", ".")
-						);
-					}
+					System.out.flush();
+					new BankersDump(new LongBankers(n), BankersDump.Format.TEXT)
+						.write(1, m, Channels.newChannel(System.out));
 				}
 			}
-		} catch (ClassNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
@@ -3,7 +3,7 @@ package au.com.phiware.math.bankers;
 import au.com.phiware.math.ring.BitArithmetic;
 
 //import com.github.ericburnett.EnumeratedSubsets;
-//import java.math.BigInteger;
+import java.math.BigInteger;
 //import java.util.BitSet;
 
 import org.junit.Test;
@@ -13,9 +13,17 @@ import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
 public class BankersBenchmark extends AbstractBenchmark {
 	static int length = 32;
 	static Bankers<Integer> bankers;
+	static Bankers<Integer> genericBankers;
+	static Bankers<Long> batchBankers;
+	static IntBankers intBankers = new IntBankers(IntBankers.MAX_LENGTH);
+	static LongBankers longBankers = new LongBankers(IntBankers.MAX_LENGTH);
+	static Bankers<BigInteger> bigBankers;
 	static {
 		try {
 			bankers = new Bankers<Integer>(length){};
+			genericBankers = new Bankers<Integer>(IntBankers.MAX_LENGTH){};
+			batchBankers = new Bankers<Long>(length){};
+			bigBankers = new Bankers<BigInteger>(128){};
 		} catch (ClassNotFoundException ignored) {}
 	}
 	
@@ -33,6 +41,97 @@ public class BankersBenchmark extends AbstractBenchmark {
 		testTo(bankers);
 	}
 
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testPhimathBatch() {
+		Long[] ranks = new Long[1 << 16], bits = new Long[ranks.length];
+		for (int i = 0; i < 1 << (length - 16); i++) {
+			for (int j = 0; j < ranks.length; j++)
+				ranks[j] = ((long) i << 16) | j;
+			batchBankers.to(ranks, bits);
+		}
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testGeneric() {
+		testTo(genericBankers);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testIntBankers() {
+		for (int i = 0; Integer.bitCount(i) < intBankers.length(); i++)
+			intBankers.to(i);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testLongBankers() {
+		for (long i = 0; Long.bitCount(i) < longBankers.length(); i++)
+			longBankers.to(i);
+	}
+
+	/**
+	 * The bit by bit scan that {@link Bankers#next(Number)} used to do.
+	 */
+	static <V extends Number> V scanNext(Bankers<V> bankers, V b) {
+		BitArithmetic<V> a = bankers.getArithmetic();
+		int z = 0, i = bankers.length() - 1;
+
+		while (i >= 0 && a.testBit(b, i))
+			i--;
+		while (i >= 0 && !a.testBit(b, i)) {
+			z++;
+			i--;
+		}
+
+		V passthru = a.subtract(a.shiftLeft(a.one(), i + 1), a.one());
+		V next = a.nand(a.subtract(a.shiftLeft(a.one(), bankers.length() - z + 1), a.one()), passthru);
+		if (i > 0)
+			next = a.or(next, a.and(b, a.shiftRight(passthru, 1)));
+
+		return next;
+	}
+
+	public <V extends Number> void testNext(Bankers<V> bankers, long count, boolean scan) {
+		V b = bankers.getArithmetic().zero();
+		for (long i = 0; i < count; i++)
+			b = scan ? scanNext(bankers, b) : bankers.next(b);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testNextScan() {
+		testNext(genericBankers, 1L << genericBankers.length(), true);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testNext() {
+		testNext(genericBankers, 1L << genericBankers.length(), false);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testBigIntegerNextScan() {
+		testNext(bigBankers, 1L << 24, true);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testBigIntegerNext() {
+		testNext(bigBankers, 1L << 24, false);
+	}
+
+	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
+	@Test
+	public void testIntBankersNext() {
+		int b = 0;
+		for (long i = 0; i < 1L << intBankers.length(); i++)
+			b = intBankers.next(b);
+	}
+
 	/*
 	@BenchmarkOptions(callgc = false, benchmarkRounds = 1, warmupRounds = 1)
 	@Test
@@ -0,0 +1,220 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Writes the Banker's sequence of a {@link LongBankers}, or a range of it, to
+ * a channel in one of three {@link Format}s. The range is cut into shards,
+ * each found with one {@link LongBankers#to(long)} and then
+ * {@link LongBankers#next(long)}; a batch of shards is encoded in parallel,
+ * each into its own direct buffer, and the buffers are written in order.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersDump {
+	public enum Format {
+		/**
+		 * Each Banker's number in the fewest little-endian bytes that hold
+		 * the length.
+		 */
+		BINARY,
+		/**
+		 * A line for each rank, as {@link Bankers#main(String[])} prints it: the
+		 * rank and its Banker's number in binary, zeros as dots, padded to
+		 * the length, separated by " : ".
+		 */
+		TEXT,
+		/**
+		 * The difference of each Banker's number from the one before it, or
+		 * from zero for the first written, zigzag encoded as an unsigned LEB128
+		 * varint.
+		 */
+		DELTA
+	}
+
+	/**
+	 * The longest length whose whole sequence, of 2<sup>length</sup> ranks,
+	 * can be counted in a long.
+	 */
+	public static final int MAX_LENGTH = Long.SIZE - 2;
+	/**
+	 * Ranks are encoded in shards of this many.
+	 */
+	static final int SHARD = 1 << 16;
+	private static final byte[] SEPARATOR = " : ".getBytes();
+	private static final byte[] LINE = System.lineSeparator().getBytes();
+	/**
+	 * The eight digits of each byte, most significant first.
+	 */
+	private static final byte[] DIGITS = new byte[256 * 8];
+	static {
+		for (int i = 0; i < DIGITS.length; i++)
+			DIGITS[i] = (byte) ((i >>> 3 >>> (7 - (i & 7)) & 1) != 0 ? '1' : '.');
+	}
+
+	private final LongBankers bankers;
+	private final Format format;
+
+	public BankersDump(LongBankers bankers, Format format) {
+		this.bankers = bankers;
+		this.format = format;
+	}
+
+	/**
+	 * @return the most bytes of one rank
+	 */
+	private int maxBytes() {
+		switch (format) {
+		case TEXT:
+			return 2 * bankers.length() + SEPARATOR.length + LINE.length;
+		case DELTA:
+			return 10;
+		default:
+			return (bankers.length() + 7) / 8;
+		}
+	}
+
+	/**
+	 * Writes the whole sequence to path, replacing it.
+	 * @return the number of bytes written
+	 */
+	public long write(Path path) throws IOException {
+		if (bankers.length() > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+bankers.length()+", must be at most "+MAX_LENGTH+" to write the whole sequence.");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			return write(0, 1L << bankers.length(), channel);
+		}
+	}
+
+	/**
+	 * Writes the ranks from fromRank (inclusive) to toRank (exclusive).
+	 * @return the number of bytes written
+	 */
+	public long write(final long fromRank, final long toRank, WritableByteChannel out) throws IOException {
+		if (fromRank < 0 || toRank < fromRank)
+			throw new IllegalArgumentException("Ranks, "+fromRank+" to "+toRank+", must be from 0 and in order.");
+		final long shards = (toRank - fromRank + SHARD - 1) / SHARD;
+		final ByteBuffer[] buffers = new ByteBuffer[(int) Math.min(shards, 2 * ForkJoinPool.getCommonPoolParallelism())];
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = ByteBuffer.allocateDirect(SHARD * maxBytes() + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+		long written = 0;
+		for (long shard = 0; shard < shards; shard += buffers.length) {
+			final long first = shard;
+			int count = (int) Math.min(buffers.length, shards - shard);
+			IntStream.range(0, count).parallel().forEach(new IntConsumer() {
+				public void accept(int i) {
+					long rank = fromRank + (first + i) * SHARD;
+					buffers[i].clear();
+					encode(rank, Math.min(rank + SHARD, toRank), rank == fromRank, buffers[i]);
+					buffers[i].flip();
+				}
+			});
+			for (int i = 0; i < count; i++)
+				while (buffers[i].hasRemaining())
+					written += out.write(buffers[i]);
+		}
+		return written;
+	}
+
+	/**
+	 * Encodes the ranks from rank (inclusive) to end (exclusive) into buffer;
+	 * first if rank begins the range written.
+	 */
+	private void encode(long rank, long end, boolean first, ByteBuffer buffer) {
+		int length = bankers.length();
+		long b = bankers.to(rank);
+		switch (format) {
+		case BINARY:
+			int width = maxBytes();
+			for (;;) {
+				int position = buffer.position();
+				buffer.putLong(b).position(position + width);
+				if (++rank == end)
+					break;
+				b = bankers.next(b);
+			}
+			break;
+		case TEXT:
+			byte[] line = new byte[maxBytes()];
+			System.arraycopy(SEPARATOR, 0, line, length, SEPARATOR.length);
+			System.arraycopy(LINE, 0, line, 2 * length + SEPARATOR.length, LINE.length);
+			for (;;) {
+				digits(rank, line, 0, length);
+				digits(b, line, length + SEPARATOR.length, length);
+				buffer.put(line);
+				if (++rank == end)
+					break;
+				b = bankers.next(b);
+			}
+			break;
+		case DELTA:
+			long previous = first ? 0 : bankers.to(rank - 1);
+			for (;;) {
+				long delta = b - previous;
+				long zigzag = (delta << 1) ^ (delta >> 63);
+				while ((zigzag & ~0x7FL) != 0) {
+					buffer.put((byte) (zigzag | 0x80));
+					zigzag >>>= 7;
+				}
+				buffer.put((byte) zigzag);
+				if (++rank == end)
+					break;
+				previous = b;
+				b = bankers.next(b);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Puts the length low bits of v into line at offset, most significant
+	 * first.
+	 */
+	static void digits(long v, byte[] line, int offset, int length) {
+		int j = 0;
+		for (; j + 8 <= length; j += 8)
+			System.arraycopy(DIGITS, (int) (v >>> j & 0xFF) << 3, line, offset + length - j - 8, 8);
+		for (; j < length; j++)
+			line[offset + length - 1 - j] = (byte) ((v >>> j & 1) != 0 ? '1' : '.');
+	}
+
+	/**
+	 * Writes the Banker's sequence of a length to a file.
+	 * <pre>
+	 * BankersDump length file [binary|text|delta]
+	 * </pre>
+	 */
+	public static void main(String[] argv) {
+		if (argv.length < 2 || argv.length > 3) {
+			System.err.println("Usage: BankersDump length file [binary|text|delta]");
+			System.exit(2);
+		}
+		Format format = argv.length > 2 ? Format.valueOf(argv[2].toUpperCase()) : Format.BINARY;
+		try {
+			long start = System.nanoTime();
+			int length = Integer.parseInt(argv[0]);
+			long bytes = new BankersDump(new LongBankers(length), format).write(Paths.get(argv[1]));
+			long millis = (System.nanoTime() - start) / 1000000;
+			System.err.println("Wrote "+(1L << length)+" Banker's numbers, "+bytes+" bytes, to "+argv[1]+" in "+millis+" ms.");
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
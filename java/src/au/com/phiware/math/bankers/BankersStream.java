@@ -0,0 +1,230 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * Converts a stream of values with the rules of {@link Bankers#main(String[])}:
+ * lines of ranks and bit strings, or little-endian records of 8 bytes, in
+ * batches that are converted in parallel and written in order. One
+ * {@link LongBankers} of each length is made, the first time it is needed;
+ * length 64, which is too long for a LongBankers, is converted by a
+ * <code>Bankers&lt;Long&gt;</code>, for ranks up to Long.MAX_VALUE and every
+ * bit string of 64 bits.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersStream {
+	/**
+	 * Lines, or records, are converted in batches of this many.
+	 */
+	static final int BATCH = 1 << 14;
+	private static final String LINE = System.lineSeparator();
+	private static final Pattern BITS = Pattern.compile("0b?[01]+");
+	private static final Pattern ONES = Pattern.compile("1[01]+");
+
+	private final int length;
+	/**
+	 * The LongBankers of each length; a race makes two of a length at worst,
+	 * and the final fields of LongBankers publish either safely.
+	 */
+	private final LongBankers[] bankers = new LongBankers[LongBankers.MAX_LENGTH + 1];
+	private volatile Bankers<Long> wide;
+
+	public BankersStream(int length) {
+		this.length = length;
+	}
+
+	private LongBankers bankers(int length) {
+		LongBankers b = bankers[length];
+		if (b == null)
+			bankers[length] = b = new LongBankers(length);
+		return b;
+	}
+
+	private Bankers<Long> wide() {
+		Bankers<Long> b = wide;
+		if (b == null)
+			wide = b = new Bankers<Long>(Long.SIZE, Binomials.sharedBinomFactory(LongArithmetic.getInstance())){};
+		return b;
+	}
+
+	private static void checkLength(int length) {
+		if (length < 1 || length > Long.SIZE)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+Long.SIZE+".");
+	}
+
+	private long to(int length, long rank) {
+		return length > LongBankers.MAX_LENGTH ? wide().to(rank) : bankers(length).to(rank);
+	}
+
+	private long from(int length, long b) {
+		return length > LongBankers.MAX_LENGTH ? wide().from(b) : bankers(length).from(b);
+	}
+
+	/**
+	 * @return true if value is a bit string, rather than a rank: it begins with
+	 *         0 or 0b, or it is too big to be a rank of the length
+	 */
+	public boolean isBits(String value) {
+		if (BITS.matcher(value).matches())
+			return true;
+		if (ONES.matcher(value).matches())
+			return value.length() >= 19
+					? new BigInteger(value).bitLength() > length
+					: length < LongBankers.MAX_LENGTH && Long.parseLong(value) >>> length != 0;
+		return false;
+	}
+
+	/**
+	 * @return the rank of a bit string, padded to the digits of its length, or
+	 *         a rank and its Banker's number in binary, zeros as dots, padded
+	 *         to the length and separated by " : "
+	 */
+	public String convert(String value) {
+		if (isBits(value)) {
+			String b = value.startsWith("0b") ? value.substring(2) : value;
+			checkLength(b.length());
+			String rank = Long.toUnsignedString(from(b.length(), Long.parseUnsignedLong(b, 2)));
+			StringBuilder line = new StringBuilder();
+			for (int i = rank.length(); i < (int) Math.log10(b.length()) + 1; i++)
+				line.append(' ');
+			return line.append(rank).toString();
+		}
+		long rank = Long.parseLong(value);
+		if (rank < 0 || length < LongBankers.MAX_LENGTH && rank >>> length != 0)
+			throw new IllegalArgumentException("Rank, "+rank+", must be between 0 and 2^"+length+" - 1.");
+		checkLength(length);
+		long b = to(length, rank);
+		byte[] line = new byte[2 * length + 3];
+		BankersDump.digits(rank, line, 0, length);
+		line[length] = ' ';
+		line[length + 1] = ':';
+		line[length + 2] = ' ';
+		BankersDump.digits(b, line, length + 3, length);
+		return new String(line, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Converts each line of in to a line of out; blank lines are kept blank.
+	 * A line that cannot be converted fails its batch before any of the
+	 * batch is written, with an IOException that gives its line number.
+	 * @return the number of lines
+	 */
+	public long text(BufferedReader in, Writer out) throws IOException {
+		final String[] lines = new String[BATCH];
+		final IllegalArgumentException[] errors = new IllegalArgumentException[BATCH];
+		long count = 0;
+		for (;;) {
+			int n = 0;
+			String line;
+			while (n < BATCH && (line = in.readLine()) != null)
+				lines[n++] = line;
+			IntStream.range(0, n).parallel().forEach(new IntConsumer() {
+				public void accept(int i) {
+					String value = lines[i].trim();
+					try {
+						lines[i] = value.isEmpty() ? value : convert(value);
+					} catch (IllegalArgumentException e) {
+						errors[i] = e;
+					}
+				}
+			});
+			for (int i = 0; i < n; i++)
+				if (errors[i] != null) {
+					out.flush();
+					throw new IOException("Line "+(count + i + 1)+", "+lines[i].trim()+": "+errors[i].getMessage(), errors[i]);
+				}
+			for (int i = 0; i < n; i++) {
+				out.write(lines[i]);
+				out.write(LINE);
+			}
+			count += n;
+			if (n < BATCH)
+				break;
+		}
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Converts each little-endian record of 8 bytes of in, a rank if to is
+	 * true and otherwise a Banker's number, to a record of out.
+	 * @return the number of records
+	 */
+	public long binary(ReadableByteChannel in, WritableByteChannel out, final boolean to) throws IOException {
+		checkLength(length);
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(16 * BATCH * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		long records = 0;
+		for (;;) {
+			boolean eof = false;
+			while (buffer.hasRemaining() && !eof)
+				eof = in.read(buffer) < 0;
+			if (buffer.position() % Long.BYTES != 0)
+				throw new IOException("Not a whole number of "+Long.BYTES+" byte records.");
+			final int count = buffer.position() / Long.BYTES;
+			IntStream.range(0, (count + BATCH - 1) / BATCH).parallel().forEach(new IntConsumer() {
+				public void accept(int batch) {
+					ByteBuffer records = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+					int end = Math.min(count, (batch + 1) * BATCH) * Long.BYTES;
+					for (int i = batch * BATCH * Long.BYTES; i < end; i += Long.BYTES)
+						records.putLong(i, to ? to(length, records.getLong(i)) : from(length, records.getLong(i)));
+				}
+			});
+			buffer.flip();
+			while (buffer.hasRemaining())
+				out.write(buffer);
+			buffer.clear();
+			records += count;
+			if (eof)
+				return records;
+		}
+	}
+
+	/**
+	 * Converts standard input to standard output: lines, as
+	 * {@link Bankers#main(String[])} converts its arguments, or records of
+	 * ranks to Banker's numbers or back.
+	 * <pre>
+	 * BankersStream length [to|from]
+	 * </pre>
+	 */
+	public static void main(String[] argv) {
+		if (argv.length < 1 || argv.length > 2 || argv.length == 2 && !argv[1].matches("to|from")) {
+			System.err.println("Usage: BankersStream length [to|from]");
+			System.exit(2);
+		}
+		try {
+			BankersStream stream = new BankersStream(Integer.parseInt(argv[0]));
+			if (argv.length == 2)
+				stream.binary(Channels.newChannel(System.in), Channels.newChannel(System.out), "to".equals(argv[1]));
+			else
+				stream.text(new BufferedReader(new InputStreamReader(System.in), 1 << 16),
+						new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
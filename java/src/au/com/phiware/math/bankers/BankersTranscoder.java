@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import au.com.phiware.math.ring.AdaptiveArithmetic;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.Limbs;
+import au.com.phiware.math.ring.LimbsArithmetic;
+
+/**
+ * Converts a file of ranks to a file of the Banker's numbers of those ranks,
+ * or back, with a {@link Bankers}. Both files are a sequence of fixed-width,
+ * little-endian records: 4 bytes for an {@link IntBankers}, 8 for a
+ * {@link LongBankers} and otherwise the fewest bytes that hold its length.
+ * The input is mapped read only and the output read write, each in segments
+ * of up to 2<sup>30</sup> bytes, and the records of each segment are split in
+ * chunks across a {@link ForkJoinPool}, so each record is read from one
+ * mapping and written to the other without any other copy.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersTranscoder<V extends Number> {
+	private static final int SEGMENT = 1 << 30;
+	/**
+	 * Chunks of fewer records are not split.
+	 */
+	static final int CHUNK = 1 << 14;
+
+	private final Bankers<V> bankers;
+	private final ForkJoinPool pool;
+	private final int width;
+
+	public BankersTranscoder(Bankers<V> bankers) {
+		this(bankers, ForkJoinPool.commonPool());
+	}
+
+	public BankersTranscoder(Bankers<V> bankers, ForkJoinPool pool) {
+		this.bankers = bankers;
+		this.pool = pool;
+		if (bankers instanceof IntBankers)
+			width = Integer.BYTES;
+		else if (bankers instanceof LongBankers)
+			width = Long.BYTES;
+		else
+			width = (bankers.length() + 7) / 8;
+	}
+
+	/**
+	 * @return the bytes of each record
+	 */
+	public int getRecordWidth() {
+		return width;
+	}
+
+	/**
+	 * Writes the Banker's number of each rank of in to out, replacing it.
+	 * @return the number of records
+	 */
+	public long to(Path in, Path out) throws IOException {
+		return transcode(in, out, true);
+	}
+
+	/**
+	 * Writes the rank of each Banker's number of in to out, replacing it.
+	 * @return the number of records
+	 */
+	public long from(Path in, Path out) throws IOException {
+		return transcode(in, out, false);
+	}
+
+	private long transcode(Path in, Path out, boolean to) throws IOException {
+		try (FileChannel input = FileChannel.open(in, StandardOpenOption.READ);
+		     FileChannel output = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.READ,
+		    		 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = input.size();
+			if (size % width != 0)
+				throw new IOException("Not a whole number of "+width+" byte records: "+in);
+
+			long segment = SEGMENT / width * width;
+			List<Chunk> chunks = new ArrayList<Chunk>();
+			for (long position = 0; position < size; position += segment) {
+				long length = Math.min(segment, size - position);
+				chunks.add(new Chunk(
+						input.map(FileChannel.MapMode.READ_ONLY, position, length),
+						output.map(FileChannel.MapMode.READ_WRITE, position, length),
+						0, (int) (length / width), to));
+			}
+			for (Chunk chunk : chunks)
+				pool.execute(chunk);
+			for (Chunk chunk : chunks) {
+				chunk.join();
+				chunk.out.force();
+			}
+			return size / width;
+		}
+	}
+
+	/**
+	 * The records from (inclusive) to to (exclusive) of one segment.
+	 */
+	private class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final MappedByteBuffer in, out;
+		final int from, to;
+		final boolean toBankers;
+
+		Chunk(MappedByteBuffer in, MappedByteBuffer out, int from, int to, boolean toBankers) {
+			this.in = in;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+			this.toBankers = toBankers;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Chunk(in, out, from, mid, toBankers), new Chunk(in, out, mid, to, toBankers));
+				return;
+			}
+			ByteBuffer in = this.in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer out = this.out.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			if (bankers instanceof IntBankers) {
+				IntBankers b = (IntBankers) bankers;
+				for (int i = from * width; i < to * width; i += width)
+					out.putInt(i, toBankers ? b.to(in.getInt(i)) : b.from(in.getInt(i)));
+			} else if (bankers instanceof LongBankers) {
+				LongBankers b = (LongBankers) bankers;
+				for (int i = from * width; i < to * width; i += width)
+					out.putLong(i, toBankers ? b.to(in.getLong(i)) : b.from(in.getLong(i)));
+			} else {
+				byte[] record = new byte[width];
+				for (int i = from * width; i < to * width; i += width) {
+					in.position(i);
+					in.get(record);
+					V v = valueOf(record);
+					write(out, i, toBankers ? bankers.to(v) : bankers.from(v));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the value of a little-endian record
+	 */
+	@SuppressWarnings("unchecked")
+	private V valueOf(byte[] record) {
+		BitArithmetic<V> a = bankers.getArithmetic();
+		for (int i = 0, j = record.length - 1; i < j; i++, j--) {
+			byte t = record[i];
+			record[i] = record[j];
+			record[j] = t;
+		}
+		BigInteger value = new BigInteger(1, record);
+		if (a instanceof BigIntegerArithmetic)
+			return (V) value;
+		if (a instanceof AdaptiveArithmetic)
+			return (V) AdaptiveArithmetic.valueOf(value);
+		if (a instanceof LimbsArithmetic)
+			return (V) Limbs.valueOf(value, ((LimbsArithmetic) a).width());
+		V v = a.zero();
+		for (int i = value.getLowestSetBit(); i >= 0 && i < value.bitLength(); i++)
+			if (value.testBit(i))
+				v = a.setBit(v, i);
+		return v;
+	}
+
+	/**
+	 * Writes v as a little-endian record at index.
+	 */
+	private void write(ByteBuffer out, int index, V v) {
+		BitArithmetic<V> a = bankers.getArithmetic();
+		BigInteger value;
+		if (v instanceof BigInteger)
+			value = (BigInteger) v;
+		else if (v instanceof Limbs)
+			value = ((Limbs) v).toBigInteger();
+		else if (a.maxBitLength() <= Long.SIZE)
+			value = BigInteger.valueOf(v.longValue()).and(BigInteger.ONE.shiftLeft(a.maxBitLength()).subtract(BigInteger.ONE));
+		else
+			value = AdaptiveArithmetic.toBigInteger(v);
+		byte[] magnitude = value.toByteArray();
+		for (int i = 0; i < width; i++)
+			out.put(index + i, i < magnitude.length ? magnitude[magnitude.length - 1 - i] : 0);
+	}
+}
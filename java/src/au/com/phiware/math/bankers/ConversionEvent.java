@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+import au.com.phiware.math.binom.BinomMetrics;
+
+/**
+ * A Flight Recorder event for each conversion of {@link Bankers} that takes
+ * longer than the threshold, 10 ms unless the recording says otherwise. It
+ * is begun and committed by {@link Bankers#start()} and
+ * {@link Bankers#timed(ConversionEvent, BinomMetrics.Operation, int)}, which
+ * time the conversion for the metrics too. The triangle builds, row loads
+ * and cache evictions that made it slow are recorded within it, on the same
+ * thread.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@Name("au.com.phiware.math.Conversion")
+@Label("Slow Conversion")
+@Category({"Phimath", "Bankers"})
+@Description("A conversion to or from a Banker's number that took longer than the threshold")
+@Threshold("10 ms")
+final class ConversionEvent extends Event {
+	@Label("Operation")
+	String operation;
+
+	@Label("Length")
+	int length;
+
+	@Label("Count")
+	@Description("The number of values converted by the call")
+	int count;
+
+	@Label("Arithmetic")
+	Class<?> arithmetic;
+
+	/**
+	 * The metrics to report to, and the time the conversion started for
+	 * them; neither is recorded.
+	 */
+	transient BinomMetrics metrics;
+	transient long start;
+
+	/**
+	 * @return whether a recording would commit this event
+	 */
+	static boolean enabled() {
+		return new ConversionEvent().isEnabled();
+	}
+}
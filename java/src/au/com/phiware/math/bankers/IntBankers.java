@@ -0,0 +1,433 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import au.com.phiware.math.binom.BinomMetrics.Operation;
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.IntegerArithmetic;
+
+/**
+ * A {@link Bankers} specialised for bit strings of up to 31 bits that works on
+ * primitive <code>int</code>s. The binomial coefficients are held in a
+ * folded half-triangle (the same layout as the C implementation) that is
+ * computed once, so {@link #to(int)}, {@link #from(int)} and
+ * {@link #next(int)} neither box nor allocate.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class IntBankers extends Bankers<Integer> {
+	public static final int MAX_LENGTH = Integer.SIZE - 1;
+
+	private final int mask, topBit;
+	/**
+	 * m choose j, for m &lt; length and j &lt;= m / 2, at {@link #fold(int, int)}.
+	 */
+	private final int[] choose;
+	/**
+	 * The rank of the first Banker's number with w ones, at index w.
+	 */
+	private final int[] firstRank;
+
+	public IntBankers(int length) {
+		super(length, Binomials.sharedBinomFactory(IntegerArithmetic.getInstance()));
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+
+		topBit = 1 << (length - 1);
+		mask = topBit + (topBit - 1);
+
+		choose = new int[fold(length, 0)];
+		for (int m = 0; m < length; m++)
+			for (int j = 0; j <= m / 2; j++)
+				choose[fold(m, j)] = j == 0 ? 1 : choose(m - 1, j - 1) + choose(m - 1, j);
+
+		firstRank = new int[length + 1];
+		int binom = 1;
+		for (int w = 1; w <= length; w++) {
+			firstRank[w] = firstRank[w - 1] + binom;
+			binom = w < length ? choose(length - 1, w - 1) + choose(length - 1, w) : 1;
+		}
+	}
+
+	/**
+	 * @return a {@link TableBankers} if its tables fit in its budget, otherwise an IntBankers
+	 */
+	public static IntBankers forLength(int length) {
+		if (length <= TableBankers.maxLength())
+			return new TableBankers(length);
+		return new IntBankers(length);
+	}
+
+	static int fold(int m, int j) {
+		return ((m + 1) * (m + 1)) / 4 + j;
+	}
+
+	private int choose(int m, int j) {
+		if (j > m / 2)
+			j = m - j;
+		return choose[fold(m, j)];
+	}
+
+	@Override
+	public Integer firstRankOfWeight(int k) {
+		if (k < 0 || k > length())
+			throw new IllegalArgumentException("Weight, "+k+", must be between 0 and "+length()+".");
+		return firstRank[k];
+	}
+
+	/**
+	 * As {@link Bankers#weightOfRank(Number)}, without boxing.
+	 */
+	public int weightOfRank(int r) {
+		if ((r & topBit) != 0)
+			return length() - weight(r ^ mask, length() / 2);
+		return weight(r, length() / 2);
+	}
+
+	@Override
+	public int weightOfRank(Integer r) {
+		return weightOfRank(r.intValue());
+	}
+
+	/**
+	 * Binary search the first ranks of weights up to max.
+	 */
+	private int weight(int v, int max) {
+		int w = 0;
+		while (w < max) {
+			int mid = (w + max + 1) >>> 1;
+			if (firstRank[mid] <= v)
+				w = mid;
+			else
+				max = mid - 1;
+		}
+		return w;
+	}
+
+	public int to(int v) {
+		ConversionEvent event = start();
+		int result = walkTo(v);
+		timed(event, Operation.TO, 1);
+		return result;
+	}
+
+	int walkTo(int v) {
+		int flip = 0;
+		if ((v & topBit) != 0) {
+			v ^= mask;
+			flip = mask;
+		}
+		if (v == 0)
+			return flip;
+
+		int w = weight(v, length() / 2);
+
+		int b = 0, e = v - firstRank[w];
+		for (int i = 0, j = w - 1; j >= 0; i++) {
+			int binom = choose(length() - 1 - i, j);
+			if (binom > e) {
+				b |= 1 << i;
+				j--;
+			} else
+				e -= binom;
+		}
+
+		return b ^ flip;
+	}
+
+	public int from(int b) {
+		ConversionEvent event = start();
+		int result = walkFrom(b);
+		timed(event, Operation.FROM, 1);
+		return result;
+	}
+
+	int walkFrom(int b) {
+		int j = Integer.bitCount(b);
+
+		if (j == 0)
+			return 0;
+
+		int v = firstRank[j--];
+		for (int i = 0; j >= 0; i++)
+			if ((b & (1 << i)) != 0)
+				j--;
+			else
+				v += choose(length() - 1 - i, j);
+
+		return v;
+	}
+
+	public int next(int b) {
+		ConversionEvent event = start();
+		int result = walkNext(b);
+		timed(event, Operation.NEXT, 1);
+		return result;
+	}
+
+	/**
+	 * Finds the highest zero (below the run of ones at the top of b) and the
+	 * highest one below that by counting leading zeros of the int, in constant
+	 * time; {@link Bankers#next(Number)} does the same with accumulators, in
+	 * time linear in the length.
+	 */
+	private int walkNext(int b) {
+		int zero = 31 - Integer.numberOfLeadingZeros(mask & ~b), i = -1;
+		if (zero >= 0)
+			i = 31 - Integer.numberOfLeadingZeros(b & ((1 << zero) - 1));
+		int z = zero - i;
+
+		int passthru = (1 << (i + 1)) - 1;
+		int next = ((1 << (length() - z + 1)) - 1) & ~passthru;
+		if (i > 0)
+			next |= b & (passthru >> 1);
+
+		return next;
+	}
+
+
+	/**
+	 * Convert each of ranks into out, at the same index; out may be ranks.
+	 */
+	public void to(int[] ranks, int[] out) {
+		ConversionEvent event = start();
+		walkTo(ranks, out);
+		timed(event, Operation.TO, ranks.length);
+	}
+
+	/**
+	 * The ranks are bucketed by weight class, so that each class starts from
+	 * the same first rank and row, and the ranks of a class are walked
+	 * {@link #LANES} at a time, in lockstep and without branches, so that
+	 * their walks overlap rather than each waiting on its own comparisons.
+	 */
+	void walkTo(int[] ranks, int[] out) {
+		int half = length() / 2;
+		int[] starts = new int[half + 2], order = new int[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			order[i] = weight(ranks[i] ^ flip(ranks[i]), half);
+		order = sortByWeight(order, starts);
+
+		for (int w = 0; w <= half; w++) {
+			int p = starts[w], end = starts[w + 1];
+			for (; p + LANES <= end; p += LANES)
+				walkTo(ranks, out, order, p, w);
+			for (; p < end; p++)
+				out[order[p]] = walkTo(ranks[order[p]]);
+		}
+	}
+
+	/**
+	 * The number of ranks of a weight class that are walked together.
+	 */
+	static final int LANES = 4;
+
+	/**
+	 * @return mask if r is in the upper half of the sequence, otherwise 0
+	 */
+	private int flip(int r) {
+		return -(r >>> (length() - 1) & 1) & mask;
+	}
+
+	/**
+	 * m choose j, or 1 once a walk is done and j is -1.
+	 */
+	private int lane(int m, int j) {
+		return choose[fold(m, Math.max(0, Math.min(j, m - j)))];
+	}
+
+	/**
+	 * Walk the {@link #LANES} ranks of weight class w at order[p] in lockstep.
+	 * Each step takes a one where e &lt; binom, the sign of e - binom, and
+	 * stops taking once its j is -1.
+	 */
+	private void walkTo(int[] ranks, int[] out, int[] order, int p, int w) {
+		int i0 = order[p], i1 = order[p + 1], i2 = order[p + 2], i3 = order[p + 3];
+		int f0 = flip(ranks[i0]), f1 = flip(ranks[i1]), f2 = flip(ranks[i2]), f3 = flip(ranks[i3]);
+		int e0 = (ranks[i0] ^ f0) - firstRank[w], e1 = (ranks[i1] ^ f1) - firstRank[w];
+		int e2 = (ranks[i2] ^ f2) - firstRank[w], e3 = (ranks[i3] ^ f3) - firstRank[w];
+		int b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+		int j0 = w - 1, j1 = j0, j2 = j0, j3 = j0;
+		for (int i = 0; (j0 & j1 & j2 & j3) >= 0; i++) {
+			int m = length() - 1 - i;
+			int c0 = lane(m, j0), c1 = lane(m, j1), c2 = lane(m, j2), c3 = lane(m, j3);
+			int t0 = ((e0 - c0) >> 31) & ~(j0 >> 31);
+			int t1 = ((e1 - c1) >> 31) & ~(j1 >> 31);
+			int t2 = ((e2 - c2) >> 31) & ~(j2 >> 31);
+			int t3 = ((e3 - c3) >> 31) & ~(j3 >> 31);
+			b0 |= (t0 & 1) << i;
+			b1 |= (t1 & 1) << i;
+			b2 |= (t2 & 1) << i;
+			b3 |= (t3 & 1) << i;
+			e0 -= c0 & ~t0;
+			e1 -= c1 & ~t1;
+			e2 -= c2 & ~t2;
+			e3 -= c3 & ~t3;
+			j0 += t0;
+			j1 += t1;
+			j2 += t2;
+			j3 += t3;
+		}
+		out[i0] = b0 ^ f0;
+		out[i1] = b1 ^ f1;
+		out[i2] = b2 ^ f2;
+		out[i3] = b3 ^ f3;
+	}
+
+	/**
+	 * Convert each of bits into out, at the same index; out may be bits.
+	 */
+	public void from(int[] bits, int[] out) {
+		ConversionEvent event = start();
+		walkFrom(bits, out);
+		timed(event, Operation.FROM, bits.length);
+	}
+
+	/**
+	 * Each walk is as {@link #walkFrom(int)} but without branches; its steps
+	 * depend only on the bits of b, so successive walks overlap.
+	 */
+	void walkFrom(int[] bits, int[] out) {
+		for (int i = 0; i < bits.length; i++) {
+			int b = bits[i];
+			int j = Integer.bitCount(b) - 1;
+			int v = firstRank[j + 1];
+			for (int n = 0; j >= 0; n++) {
+				int one = -(b >>> n & 1);
+				v += lane(length() - 1 - n, j) & ~one;
+				j += one;
+			}
+			out[i] = v;
+		}
+	}
+
+	/**
+	 * Fill out with the Banker's numbers that succeed b.
+	 */
+	public void next(int b, int[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < out.length; i++)
+			out[i] = b = walkNext(b);
+		timed(event, Operation.NEXT, out.length);
+	}
+
+	/**
+	 * @return the whole Banker's sequence, in order
+	 */
+	public IntStream intStream() {
+		return StreamSupport.intStream(new Sequence(0, mask), false);
+	}
+
+	/**
+	 * @return the Banker's numbers at fromRank (inclusive) to toRank (exclusive)
+	 */
+	public IntStream intStream(int fromRank, int toRank) {
+		if (fromRank >= toRank)
+			return IntStream.empty();
+		return StreamSupport.intStream(new Sequence(fromRank, toRank - 1), false);
+	}
+
+	/**
+	 * Splits its range of ranks in half until it is traversed; the first
+	 * number is then found with {@link #to(int)} and the rest with
+	 * {@link #next(int)}.
+	 */
+	private class Sequence implements Spliterator.OfInt {
+		private int rank, last, bits;
+		private boolean started, done;
+
+		Sequence(int rank, int last) {
+			this.rank = rank;
+			this.last = last;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (done)
+				return false;
+			bits = started ? next(bits) : to(rank);
+			started = true;
+			if (rank == last)
+				done = true;
+			else
+				rank++;
+			action.accept(bits);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			if (done)
+				return;
+			int b = started ? next(bits) : to(rank);
+			for (int r = rank; r != last; r++) {
+				action.accept(b);
+				b = next(b);
+			}
+			action.accept(b);
+			bits = b;
+			rank = last;
+			started = done = true;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			if (started || last - rank < MIN_SPLIT)
+				return null;
+			int mid = rank + (last - rank) / 2;
+			Sequence prefix = new Sequence(rank, mid);
+			rank = mid + 1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			if (done)
+				return 0;
+			return (long) last - rank + 1;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+		}
+	}
+
+	@Override
+	public Integer to(Integer v) {
+		return to(v.intValue());
+	}
+
+	@Override
+	public Integer from(Integer b) {
+		return from(b.intValue());
+	}
+
+	@Override
+	public Integer next(Integer b) {
+		return next(b.intValue());
+	}
+
+	@Override
+	public void to(Integer[] ranks, Integer[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < ranks.length; i++)
+			out[i] = walkTo(ranks[i].intValue());
+		timed(event, Operation.TO, ranks.length);
+	}
+
+	@Override
+	public void from(Integer[] bits, Integer[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < bits.length; i++)
+			out[i] = walkFrom(bits[i].intValue());
+		timed(event, Operation.FROM, bits.length);
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.Limbs;
+import au.com.phiware.math.ring.LimbsArithmetic;
+
+/**
+ * A {@link Bankers} of {@link Limbs}, for bit strings of up to 4096 bits.
+ * The accumulators of {@link LimbsArithmetic} are Limbs modified in place,
+ * so {@link #to(Number)}, {@link #from(Number)} and {@link #next(Number)}
+ * allocate nothing but their result.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class LimbsBankers extends Bankers<Limbs> {
+	public static final int MAX_LENGTH = LimbsArithmetic.MAX_LENGTH;
+
+	public LimbsBankers(int length) {
+		super(length, Binomials.sharedBinomFactory(LimbsArithmetic.getInstance(length)));
+	}
+
+	@Override
+	public LimbsArithmetic getArithmetic() {
+		return (LimbsArithmetic) super.getArithmetic();
+	}
+}
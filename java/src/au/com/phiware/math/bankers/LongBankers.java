@@ -0,0 +1,425 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import au.com.phiware.math.binom.BinomMetrics.Operation;
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * A {@link Bankers} specialised for bit strings of up to 63 bits that works on
+ * primitive <code>long</code>s. The binomial coefficients are held in a
+ * folded half-triangle (the same layout as the C implementation) that is
+ * computed once, so {@link #to(long)}, {@link #from(long)} and
+ * {@link #next(long)} neither box nor allocate.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class LongBankers extends Bankers<Long> {
+	public static final int MAX_LENGTH = Long.SIZE - 1;
+
+	private final long mask, topBit;
+	/**
+	 * m choose j, for m &lt; length and j &lt;= m / 2, at {@link #fold(int, int)}.
+	 */
+	private final long[] choose;
+	/**
+	 * The rank of the first Banker's number with w ones, at index w.
+	 */
+	private final long[] firstRank;
+
+	public LongBankers(int length) {
+		super(length, Binomials.sharedBinomFactory(LongArithmetic.getInstance()));
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+
+		topBit = 1L << (length - 1);
+		mask = topBit + (topBit - 1);
+
+		choose = new long[fold(length, 0)];
+		for (int m = 0; m < length; m++)
+			for (int j = 0; j <= m / 2; j++)
+				choose[fold(m, j)] = j == 0 ? 1 : choose(m - 1, j - 1) + choose(m - 1, j);
+
+		firstRank = new long[length + 1];
+		long binom = 1;
+		for (int w = 1; w <= length; w++) {
+			firstRank[w] = firstRank[w - 1] + binom;
+			binom = w < length ? choose(length - 1, w - 1) + choose(length - 1, w) : 1;
+		}
+	}
+
+	static int fold(int m, int j) {
+		return ((m + 1) * (m + 1)) / 4 + j;
+	}
+
+	private long choose(int m, int j) {
+		if (j > m / 2)
+			j = m - j;
+		return choose[fold(m, j)];
+	}
+
+	@Override
+	public Long firstRankOfWeight(int k) {
+		if (k < 0 || k > length())
+			throw new IllegalArgumentException("Weight, "+k+", must be between 0 and "+length()+".");
+		return firstRank[k];
+	}
+
+	/**
+	 * As {@link Bankers#weightOfRank(Number)}, without boxing.
+	 */
+	public int weightOfRank(long r) {
+		if ((r & topBit) != 0)
+			return length() - weight(r ^ mask, length() / 2);
+		return weight(r, length() / 2);
+	}
+
+	@Override
+	public int weightOfRank(Long r) {
+		return weightOfRank(r.longValue());
+	}
+
+	/**
+	 * Binary search the first ranks of weights up to max.
+	 */
+	private int weight(long v, int max) {
+		int w = 0;
+		while (w < max) {
+			int mid = (w + max + 1) >>> 1;
+			if (firstRank[mid] <= v)
+				w = mid;
+			else
+				max = mid - 1;
+		}
+		return w;
+	}
+
+	public long to(long v) {
+		ConversionEvent event = start();
+		long result = walkTo(v);
+		timed(event, Operation.TO, 1);
+		return result;
+	}
+
+	long walkTo(long v) {
+		long flip = 0;
+		if ((v & topBit) != 0) {
+			v ^= mask;
+			flip = mask;
+		}
+		if (v == 0)
+			return flip;
+
+		int w = weight(v, length() / 2);
+
+		long b = 0, e = v - firstRank[w];
+		for (int i = 0, j = w - 1; j >= 0; i++) {
+			long binom = choose(length() - 1 - i, j);
+			if (binom > e) {
+				b |= 1L << i;
+				j--;
+			} else
+				e -= binom;
+		}
+
+		return b ^ flip;
+	}
+
+	public long from(long b) {
+		ConversionEvent event = start();
+		long result = walkFrom(b);
+		timed(event, Operation.FROM, 1);
+		return result;
+	}
+
+	long walkFrom(long b) {
+		int j = Long.bitCount(b);
+
+		if (j == 0)
+			return 0;
+
+		long v = firstRank[j--];
+		for (int i = 0; j >= 0; i++)
+			if ((b & (1L << i)) != 0)
+				j--;
+			else
+				v += choose(length() - 1 - i, j);
+
+		return v;
+	}
+
+	public long next(long b) {
+		ConversionEvent event = start();
+		long result = walkNext(b);
+		timed(event, Operation.NEXT, 1);
+		return result;
+	}
+
+	/**
+	 * Finds the highest zero (below the run of ones at the top of b) and the
+	 * highest one below that by counting leading zeros of the long, in constant
+	 * time; {@link Bankers#next(Number)} does the same with accumulators, in
+	 * time linear in the length.
+	 */
+	private long walkNext(long b) {
+		int zero = 63 - Long.numberOfLeadingZeros(mask & ~b), i = -1;
+		if (zero >= 0)
+			i = 63 - Long.numberOfLeadingZeros(b & ((1L << zero) - 1));
+		int z = zero - i;
+
+		long passthru = (1L << (i + 1)) - 1;
+		long next = ((1L << (length() - z + 1)) - 1) & ~passthru;
+		if (i > 0)
+			next |= b & (passthru >> 1);
+
+		return next;
+	}
+
+
+	/**
+	 * Convert each of ranks into out, at the same index; out may be ranks.
+	 */
+	public void to(long[] ranks, long[] out) {
+		ConversionEvent event = start();
+		walkTo(ranks, out);
+		timed(event, Operation.TO, ranks.length);
+	}
+
+	/**
+	 * The ranks are bucketed by weight class, so that each class starts from
+	 * the same first rank and row, and the ranks of a class are walked
+	 * {@link #LANES} at a time, in lockstep and without branches, so that
+	 * their walks overlap rather than each waiting on its own comparisons.
+	 */
+	void walkTo(long[] ranks, long[] out) {
+		int half = length() / 2;
+		int[] starts = new int[half + 2], order = new int[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			order[i] = weight(ranks[i] ^ flip(ranks[i]), half);
+		order = sortByWeight(order, starts);
+
+		for (int w = 0; w <= half; w++) {
+			int p = starts[w], end = starts[w + 1];
+			for (; p + LANES <= end; p += LANES)
+				walkTo(ranks, out, order, p, w);
+			for (; p < end; p++)
+				out[order[p]] = walkTo(ranks[order[p]]);
+		}
+	}
+
+	/**
+	 * The number of ranks of a weight class that are walked together.
+	 */
+	static final int LANES = 4;
+
+	/**
+	 * @return mask if r is in the upper half of the sequence, otherwise 0
+	 */
+	private long flip(long r) {
+		return -(r >>> (length() - 1) & 1) & mask;
+	}
+
+	/**
+	 * m choose j, or 1 once a walk is done and j is -1.
+	 */
+	private long lane(int m, int j) {
+		return choose[fold(m, Math.max(0, Math.min(j, m - j)))];
+	}
+
+	/**
+	 * Walk the {@link #LANES} ranks of weight class w at order[p] in lockstep.
+	 * Each step takes a one where e &lt; binom, the sign of e - binom, and
+	 * stops taking once its j is -1.
+	 */
+	private void walkTo(long[] ranks, long[] out, int[] order, int p, int w) {
+		int i0 = order[p], i1 = order[p + 1], i2 = order[p + 2], i3 = order[p + 3];
+		long f0 = flip(ranks[i0]), f1 = flip(ranks[i1]), f2 = flip(ranks[i2]), f3 = flip(ranks[i3]);
+		long e0 = (ranks[i0] ^ f0) - firstRank[w], e1 = (ranks[i1] ^ f1) - firstRank[w];
+		long e2 = (ranks[i2] ^ f2) - firstRank[w], e3 = (ranks[i3] ^ f3) - firstRank[w];
+		long b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+		int j0 = w - 1, j1 = j0, j2 = j0, j3 = j0;
+		for (int i = 0; (j0 & j1 & j2 & j3) >= 0; i++) {
+			int m = length() - 1 - i;
+			long c0 = lane(m, j0), c1 = lane(m, j1), c2 = lane(m, j2), c3 = lane(m, j3);
+			long t0 = ((e0 - c0) >> 63) & ~(j0 >> 31);
+			long t1 = ((e1 - c1) >> 63) & ~(j1 >> 31);
+			long t2 = ((e2 - c2) >> 63) & ~(j2 >> 31);
+			long t3 = ((e3 - c3) >> 63) & ~(j3 >> 31);
+			b0 |= (t0 & 1) << i;
+			b1 |= (t1 & 1) << i;
+			b2 |= (t2 & 1) << i;
+			b3 |= (t3 & 1) << i;
+			e0 -= c0 & ~t0;
+			e1 -= c1 & ~t1;
+			e2 -= c2 & ~t2;
+			e3 -= c3 & ~t3;
+			j0 += t0;
+			j1 += t1;
+			j2 += t2;
+			j3 += t3;
+		}
+		out[i0] = b0 ^ f0;
+		out[i1] = b1 ^ f1;
+		out[i2] = b2 ^ f2;
+		out[i3] = b3 ^ f3;
+	}
+
+	/**
+	 * Convert each of bits into out, at the same index; out may be bits.
+	 */
+	public void from(long[] bits, long[] out) {
+		ConversionEvent event = start();
+		walkFrom(bits, out);
+		timed(event, Operation.FROM, bits.length);
+	}
+
+	/**
+	 * Each walk is as {@link #walkFrom(long)} but without branches; its steps
+	 * depend only on the bits of b, so successive walks overlap.
+	 */
+	void walkFrom(long[] bits, long[] out) {
+		for (int i = 0; i < bits.length; i++) {
+			long b = bits[i];
+			int j = Long.bitCount(b) - 1;
+			long v = firstRank[j + 1];
+			for (int n = 0; j >= 0; n++) {
+				long one = -(b >>> n & 1);
+				v += lane(length() - 1 - n, j) & ~one;
+				j += one;
+			}
+			out[i] = v;
+		}
+	}
+
+	/**
+	 * Fill out with the Banker's numbers that succeed b.
+	 */
+	public void next(long b, long[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < out.length; i++)
+			out[i] = b = walkNext(b);
+		timed(event, Operation.NEXT, out.length);
+	}
+
+	/**
+	 * @return the whole Banker's sequence, in order
+	 */
+	public LongStream longStream() {
+		return StreamSupport.longStream(new Sequence(0, mask), false);
+	}
+
+	/**
+	 * @return the Banker's numbers at fromRank (inclusive) to toRank (exclusive)
+	 */
+	public LongStream longStream(long fromRank, long toRank) {
+		if (fromRank >= toRank)
+			return LongStream.empty();
+		return StreamSupport.longStream(new Sequence(fromRank, toRank - 1), false);
+	}
+
+	/**
+	 * Splits its range of ranks in half until it is traversed; the first
+	 * number is then found with {@link #to(long)} and the rest with
+	 * {@link #next(long)}.
+	 */
+	private class Sequence implements Spliterator.OfLong {
+		private long rank, last, bits;
+		private boolean started, done;
+
+		Sequence(long rank, long last) {
+			this.rank = rank;
+			this.last = last;
+		}
+
+		@Override
+		public boolean tryAdvance(LongConsumer action) {
+			if (done)
+				return false;
+			bits = started ? next(bits) : to(rank);
+			started = true;
+			if (rank == last)
+				done = true;
+			else
+				rank++;
+			action.accept(bits);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(LongConsumer action) {
+			if (done)
+				return;
+			long b = started ? next(bits) : to(rank);
+			for (long r = rank; r != last; r++) {
+				action.accept(b);
+				b = next(b);
+			}
+			action.accept(b);
+			bits = b;
+			rank = last;
+			started = done = true;
+		}
+
+		@Override
+		public Spliterator.OfLong trySplit() {
+			if (started || last - rank < MIN_SPLIT)
+				return null;
+			long mid = rank + (last - rank) / 2;
+			Sequence prefix = new Sequence(rank, mid);
+			rank = mid + 1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			if (done)
+				return 0;
+			return last - rank == Long.MAX_VALUE ? Long.MAX_VALUE : last - rank + 1;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL | IMMUTABLE
+			     | (last - rank == Long.MAX_VALUE ? 0 : SIZED | SUBSIZED);
+		}
+	}
+
+	@Override
+	public Long to(Long v) {
+		return to(v.longValue());
+	}
+
+	@Override
+	public Long from(Long b) {
+		return from(b.longValue());
+	}
+
+	@Override
+	public Long next(Long b) {
+		return next(b.longValue());
+	}
+
+	@Override
+	public void to(Long[] ranks, Long[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < ranks.length; i++)
+			out[i] = walkTo(ranks[i].longValue());
+		timed(event, Operation.TO, ranks.length);
+	}
+
+	@Override
+	public void from(Long[] bits, Long[] out) {
+		ConversionEvent event = start();
+		for (int i = 0; i < bits.length; i++)
+			out[i] = walkFrom(bits[i].longValue());
+		timed(event, Operation.FROM, bits.length);
+	}
+}
@@ -0,0 +1,233 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link LongBankers} that serves {@link #to(long)} and {@link #from(long)}
+ * from a file of the whole Banker's sequence of its length, and its inverse,
+ * made by {@link #generate(Path, int)}. The file is mapped read only, so the
+ * page cache of the operating system is its cache and is shared by every
+ * process that maps the same file.
+ *
+ * The file is a header followed by the two tables, of 2<sup>length</sup>
+ * entries each, unsigned ints up to length 32 and longs beyond:
+ * <pre>
+ * "BANKTABL" version:int length:int to:entry[2^length] from:entry[2^length]
+ * </pre>
+ * Each table is mapped in segments of 2<sup>30</sup> bytes. The segments
+ * stay mapped until they are garbage collected, even after {@link #close()}.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class MappedTableBankers extends LongBankers implements Closeable {
+	public static final int MAX_LENGTH = 34;
+
+	private static final long MAGIC = 0x42414E4B5441424CL;
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	private static final int SEGMENT_SHIFT = 30;
+	/**
+	 * Ranks are tabulated in chunks of this many, each from one walk.
+	 */
+	private static final int CHUNK = 1 << 20;
+
+	private final FileChannel channel;
+	private final Table toTable, fromTable;
+
+	public MappedTableBankers(Path path) throws IOException {
+		super(lengthOf(path));
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long entries = 1L << length();
+			if (channel.size() != HEADER + 2 * entries * width(length()))
+				throw new IOException("Truncated Banker's table: "+path);
+			toTable = new Table(channel, FileChannel.MapMode.READ_ONLY, HEADER, entries, width(length()));
+			fromTable = new Table(channel, FileChannel.MapMode.READ_ONLY, HEADER + entries * width(length()), entries, width(length()));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the length of the Banker's table at path
+	 */
+	public static int lengthOf(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0)
+					throw new IOException("Not a Banker's table: "+path);
+			header.flip();
+			if (header.getLong() != MAGIC || header.getInt() != VERSION)
+				throw new IOException("Not a Banker's table: "+path);
+			int length = header.getInt();
+			if (length < 1 || length > MAX_LENGTH)
+				throw new IOException("Length, "+length+", of "+path+" must be between 1 and "+MAX_LENGTH+".");
+			return length;
+		}
+	}
+
+	/**
+	 * @return the bytes of each entry of the tables of length
+	 */
+	private static int width(int length) {
+		return length <= Integer.SIZE ? Integer.BYTES : Long.BYTES;
+	}
+
+	/**
+	 * Writes the tables of length to path, replacing it, in parallel chunks of
+	 * ranks; the header is written last, so that an interrupted file is not
+	 * taken for a table.
+	 */
+	public static void generate(Path path, int length) throws IOException {
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+		final LongBankers bankers = new LongBankers(length);
+		final long entries = 1L << length;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final Table to = new Table(channel, FileChannel.MapMode.READ_WRITE, HEADER, entries, width(length));
+			final Table from = new Table(channel, FileChannel.MapMode.READ_WRITE, HEADER + entries * width(length), entries, width(length));
+			IntStream.range(0, (int) ((entries + CHUNK - 1) / CHUNK)).parallel().forEach(new IntConsumer() {
+				public void accept(int chunk) {
+					long r = (long) chunk * CHUNK, end = Math.min(r + CHUNK, entries);
+					long b = bankers.to(r);
+					for (;;) {
+						to.put(r, b);
+						from.put(b, r);
+						if (++r == end)
+							break;
+						b = bankers.next(b);
+					}
+				}
+			});
+			to.force();
+			from.force();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putLong(MAGIC).putInt(VERSION).putInt(length).flip();
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * @return v, an index of the tables
+	 * @throws IllegalArgumentException if v is not between 0 and 2<sup>length</sup> - 1
+	 */
+	private long index(String name, long v) {
+		if (v >>> length() != 0)
+			throw new IllegalArgumentException(name+", "+v+", must be between 0 and 2^"+length()+" - 1.");
+		return v;
+	}
+
+	@Override
+	long walkTo(long v) {
+		return toTable.get(index("Rank", v));
+	}
+
+	@Override
+	long walkFrom(long b) {
+		return fromTable.get(index("Banker's number", b));
+	}
+
+	@Override
+	void walkTo(long[] ranks, long[] out) {
+		for (int i = 0; i < ranks.length; i++)
+			out[i] = toTable.get(index("Rank", ranks[i]));
+	}
+
+	@Override
+	void walkFrom(long[] bits, long[] out) {
+		for (int i = 0; i < bits.length; i++)
+			out[i] = fromTable.get(index("Banker's number", bits[i]));
+	}
+
+	/**
+	 * Closes the file. The segments are not unmapped, as Java cannot unmap a
+	 * buffer: they stay mapped, and usable, until this MappedTableBankers is
+	 * garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * One table of a file, mapped in segments.
+	 */
+	private static class Table {
+		private final MappedByteBuffer[] segments;
+		private final int width;
+
+		Table(FileChannel channel, FileChannel.MapMode mode, long offset, long entries, int width) throws IOException {
+			long size = entries * width;
+			this.width = width;
+			segments = new MappedByteBuffer[(int) ((size + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++) {
+				long position = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(mode, offset + position, Math.min(size - position, 1L << SEGMENT_SHIFT));
+			}
+		}
+
+		long get(long i) {
+			long position = i * width;
+			ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+			int index = (int) (position & ((1L << SEGMENT_SHIFT) - 1));
+			if (width == Integer.BYTES)
+				return segment.getInt(index) & 0xFFFFFFFFL;
+			return segment.getLong(index);
+		}
+
+		void put(long i, long value) {
+			long position = i * width;
+			ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+			int index = (int) (position & ((1L << SEGMENT_SHIFT) - 1));
+			if (width == Integer.BYTES)
+				segment.putInt(index, (int) value);
+			else
+				segment.putLong(index, value);
+		}
+
+		void force() {
+			for (MappedByteBuffer segment : segments)
+				segment.force();
+		}
+	}
+
+	/**
+	 * Generates the tables of a length into a file.
+	 * <pre>
+	 * MappedTableBankers length file
+	 * </pre>
+	 */
+	public static void main(String[] argv) {
+		if (argv.length != 2) {
+			System.err.println("Usage: MappedTableBankers length file");
+			System.exit(2);
+		}
+		try {
+			long start = System.nanoTime();
+			generate(Paths.get(argv[1]), Integer.parseInt(argv[0]));
+			System.err.println("Generated "+argv[1]+" in "+(System.nanoTime() - start) / 1000000+" ms.");
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
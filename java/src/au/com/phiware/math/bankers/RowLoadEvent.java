@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for each miss of the row cache of {@link Bankers},
+ * marking a reload when the row was loaded before and has since been
+ * evicted.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@Name("au.com.phiware.math.RowLoad")
+@Label("Row Load")
+@Category({"Phimath", "Cache"})
+@Description("A row of a Bankers missed its row cache")
+final class RowLoadEvent extends Event {
+	@Label("Length")
+	int length;
+
+	@Label("Column")
+	int k;
+
+	@Label("Reload")
+	boolean reload;
+}
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An {@link IntBankers} that holds the whole Banker's sequence of its length,
+ * and its inverse, in two tables of 2<sup>length</sup> ints, so that
+ * {@link #to(int)} and {@link #from(int)} are each one array load. The tables
+ * are built in parallel, a chunk of ranks at a time, by one walk and then
+ * {@link #next(int)}, at construction.
+ *
+ * {@link IntBankers#forLength(int)} chooses this mode for the lengths whose
+ * tables fit in the budget of {@link #BUDGET_PROPERTY}.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class TableBankers extends IntBankers {
+	public static final int MAX_LENGTH = 30;
+	/**
+	 * The system property that sets the most bytes that
+	 * {@link IntBankers#forLength(int)} may spend on the tables of one
+	 * TableBankers; by default 128 MiB, or lengths up to 24.
+	 */
+	public static final String BUDGET_PROPERTY = "au.com.phiware.math.bankers.tableBudget";
+	static final long DEFAULT_BUDGET = 1L << 27;
+	/**
+	 * Ranks are tabulated in chunks of this many, each from one walk.
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	private final int[] toTable, fromTable;
+
+	public TableBankers(int length) {
+		super(length);
+		if (length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+
+		final int size = 1 << length;
+		toTable = new int[size];
+		fromTable = new int[size];
+		IntStream.range(0, (size + CHUNK - 1) / CHUNK).parallel().forEach(new IntConsumer() {
+			public void accept(int chunk) {
+				int r = chunk * CHUNK, end = Math.min(r + CHUNK, size);
+				int b = TableBankers.super.walkTo(r);
+				for (;;) {
+					toTable[r] = b;
+					fromTable[b] = r;
+					if (++r == end)
+						break;
+					b = next(b);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the longest length whose tables fit in the budget of {@link #BUDGET_PROPERTY}
+	 */
+	public static int maxLength() {
+		long budget = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET);
+		int length = 0;
+		while (length < MAX_LENGTH && 2L * Integer.BYTES << (length + 1) <= budget)
+			length++;
+		return length;
+	}
+
+	/**
+	 * @return v, an index of the tables
+	 * @throws IllegalArgumentException if v is not between 0 and 2<sup>length</sup> - 1
+	 */
+	private int index(String name, int v) {
+		if (v >>> length() != 0)
+			throw new IllegalArgumentException(name+", "+v+", must be between 0 and 2^"+length()+" - 1.");
+		return v;
+	}
+
+	@Override
+	int walkTo(int v) {
+		return toTable[index("Rank", v)];
+	}
+
+	@Override
+	int walkFrom(int b) {
+		return fromTable[index("Banker's number", b)];
+	}
+
+	@Override
+	void walkTo(int[] ranks, int[] out) {
+		for (int i = 0; i < ranks.length; i++)
+			out[i] = toTable[index("Rank", ranks[i])];
+	}
+
+	@Override
+	void walkFrom(int[] bits, int[] out) {
+		for (int i = 0; i < bits.length; i++)
+			out[i] = fromTable[index("Banker's number", bits[i])];
+	}
+}
@@ -26,6 +26,11 @@ public interface Binom<V extends Number> {
 	 */
 	public abstract Binom<V> left();
 
+	/**
+	 * @return a new cursor, initially at this binom
+	 */
+	public abstract BinomCursor<V> cursor();
+
 	public abstract double doubleValue();
 
 	public abstract float floatValue();
@@ -0,0 +1,391 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * Holds Pascal's triangle in one contiguous array, folded in half such that
+ * only n choose k, for k &lt;= n / 2, is stored. Row n begins at index
+ * (n + 1)<sup>2</sup> / 4. E.g.
+ *      0  1  2
+ *  0:  1                 [0]
+ *  1:  1                 [1]
+ *  2:  1  2              [2, 3]
+ *  3:  1  3              [4, 5]
+ *  4:  1  4  6           [6, 7, 8]
+ *
+ * The values of {@link LongArithmetic} and {@link IntegerArithmetic} are held
+ * in a <code>long[]</code>; the values of any other arithmetic are held in a
+ * <code>Number[]</code>. Rows are computed as they are first reached and the
+ * {@link Binom}s created by this factory are also {@link BinomCursor}s, which
+ * move without allocating. Their {@link Binom#value()} boxes a primitive
+ * value; {@link Binom#longValue()} does not.
+ *
+ * Rows are appended under a lock and published with a volatile write, so a
+ * BinomArray may be shared between threads; its cursors may not.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomArray<V extends Number> implements BinomFactory<V> {
+	private final BitArithmetic<V> arithmetic;
+	private final boolean primitive;
+	private volatile long[] longs;
+	private volatile Number[] values;
+	private volatile int rows;
+
+	public BinomArray(BitArithmetic<V> arithmetic) {
+		this.arithmetic = arithmetic;
+		this.primitive = arithmetic instanceof LongArithmetic
+		              || arithmetic instanceof IntegerArithmetic;
+		if (primitive)
+			longs = new long[0];
+		else
+			values = new Number[0];
+	}
+
+	static int fold(int n, int k) {
+		return (int) ((((long) n + 1) * ((long) n + 1)) / 4) + k;
+	}
+
+	@Override
+	public BitArithmetic<V> getArithmetic() {
+		return arithmetic;
+	}
+
+	@Override
+	public Binom<V> createBinom(int n, int k) {
+		if (n < 0 || k < 0 || k > n)
+			throw new IllegalArgumentException(MessageFormat.format("Undefined value for n = {0} and k = {1}.", n, k));
+		return new Cursor(n, k);
+	}
+
+	/**
+	 * Compute every row up to and including row n.
+	 */
+	private void fill(int n) {
+		if (n < rows)
+			return;
+		synchronized (this) {
+			if (n < rows)
+				return;
+			TriangleBuildEvent event = new TriangleBuildEvent();
+			event.begin();
+			int size = fold(n + 1, 0);
+			if (primitive) {
+				long[] longs = this.longs;
+				if (longs.length < size)
+					longs = Arrays.copyOf(longs, Math.max(size, 2 * longs.length));
+				for (int m = rows; m <= n; m++) {
+					longs[fold(m, 0)] = 1;
+					for (int j = 1; j <= m / 2; j++)
+						longs[fold(m, j)] = longs[index(m - 1, j - 1)] + longs[index(m - 1, j)];
+				}
+				this.longs = longs;
+			} else {
+				Number[] values = this.values;
+				if (values.length < size)
+					values = Arrays.copyOf(values, Math.max(size, 2 * values.length));
+				for (int m = rows; m <= n; m++) {
+					values[fold(m, 0)] = arithmetic.one();
+					sumRow(values, m);
+				}
+				this.values = values;
+			}
+			created(n);
+			if (event.shouldCommit()) {
+				event.n = n;
+				event.k = -1;
+				event.rows = n + 1 - rows;
+				event.nodes = size - fold(rows, 0);
+				event.arithmetic = arithmetic.getClass();
+				event.commit();
+			}
+			rows = n + 1;
+		}
+	}
+
+	/**
+	 * Sum row m of values from row m - 1, in parallel for wide rows.
+	 */
+	private void sumRow(final Number[] values, final int m) {
+		IntStream columns = IntStream.rangeClosed(1, m / 2);
+		if (m / 2 >= Binomials.PARALLEL_COLUMNS)
+			columns = columns.parallel();
+		columns.forEach(new IntConsumer() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public void accept(int j) {
+				values[fold(m, j)] = arithmetic.add((V) values[index(m - 1, j - 1)], (V) values[index(m - 1, j)]);
+			}
+		});
+	}
+
+	@Override
+	public void prewarm(int n) {
+		fill(n);
+	}
+
+	/**
+	 * Write every row up to and including row n to a snapshot at path, which
+	 * {@link #load(Path)} restores.
+	 */
+	public void save(Path path, int n) throws IOException {
+		fill(n);
+		BinomSnapshot<V> snapshot = new BinomSnapshot<V>(arithmetic);
+		try (DataOutputStream out = snapshot.create(path, n)) {
+			for (int m = 0; m <= n; m++)
+				for (int j = 0; j <= m / 2; j++)
+					snapshot.write(out, value(m, j));
+		}
+	}
+
+	/**
+	 * Restore the rows of the snapshot at path, unless they are already computed.
+	 * @return the last row of the snapshot
+	 */
+	public int load(Path path) throws IOException {
+		BinomSnapshot<V> snapshot = new BinomSnapshot<V>(arithmetic);
+		ByteBuffer buffer = snapshot.read(path);
+		int n = buffer.getInt();
+		synchronized (this) {
+			if (n < rows)
+				return n;
+			int size = fold(n + 1, 0);
+			if (primitive) {
+				long[] longs = Arrays.copyOf(this.longs, Math.max(size, this.longs.length));
+				for (int i = 0; i < size; i++)
+					longs[i] = snapshot.readLong(buffer);
+				this.longs = longs;
+			} else {
+				Number[] values = Arrays.copyOf(this.values, Math.max(size, this.values.length));
+				for (int i = 0; i < size; i++)
+					values[i] = snapshot.read(buffer);
+				this.values = values;
+			}
+			created(n);
+			rows = n + 1;
+		}
+		return n;
+	}
+
+	/**
+	 * The bytes of a value that is not primitive, besides its magnitude: its
+	 * reference in the array (4), and the header and fields of its object (20).
+	 */
+	private static final int VALUE_BYTES = 24;
+
+	/**
+	 * Report the rows after the last computed, up to and including row n,
+	 * to the installed {@link BinomMetrics}. A value of row m has at most m
+	 * bits.
+	 */
+	private void created(int n) {
+		BinomMetrics metrics = Binomials.getMetrics();
+		if (metrics == null)
+			return;
+		long count = fold(n + 1, 0) - fold(rows, 0), bytes = count * Long.BYTES;
+		if (!primitive) {
+			bytes = 0;
+			for (int m = rows; m <= n; m++)
+				bytes += (m / 2 + 1L) * (VALUE_BYTES + m / 8);
+		}
+		metrics.nodesCreated(count, bytes);
+	}
+
+	private static int index(int n, int k) {
+		return fold(n, k > n / 2 ? n - k : k);
+	}
+
+	private long longValue(int n, int k) {
+		return longs[index(n, k)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(int n, int k) {
+		if (primitive)
+			return box(longValue(n, k));
+		return (V) values[index(n, k)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private V box(long value) {
+		if (arithmetic instanceof LongArithmetic)
+			return (V) Long.valueOf(value);
+		return (V) Integer.valueOf((int) value);
+	}
+
+	/**
+	 * A position in the triangle; n and k are never folded.
+	 */
+	protected class Cursor implements BinomCursor<V> {
+		private int n, k;
+
+		Cursor(int n, int k) {
+			fill(n);
+			this.n = n;
+			this.k = k;
+		}
+
+		@Override
+		public V value() {
+			return BinomArray.this.value(n, k);
+		}
+
+		@Override
+		public V sum() {
+			if (k == n)
+				return arithmetic.shiftLeft(arithmetic.one(), n);
+			if (primitive) {
+				long sum = 0;
+				for (int j = 0; j <= k; j++)
+					sum += BinomArray.this.longValue(n, j);
+				return box(sum);
+			}
+			V sum = arithmetic.zero();
+			for (int j = 0; j <= k; j++)
+				sum = arithmetic.add(sum, BinomArray.this.value(n, j));
+			return sum;
+		}
+
+		@Override
+		public boolean moveBack() {
+			if (k == 0)
+				return false;
+			n--;
+			k--;
+			return true;
+		}
+
+		@Override
+		public boolean moveDown() {
+			if (k == n)
+				return false;
+			n--;
+			return true;
+		}
+
+		@Override
+		public boolean moveNext() {
+			fill(n + 1);
+			n++;
+			k++;
+			return true;
+		}
+
+		@Override
+		public boolean moveUp() {
+			fill(n + 1);
+			n++;
+			return true;
+		}
+
+		@Override
+		public boolean moveRight() {
+			if (k == n)
+				return false;
+			k++;
+			return true;
+		}
+
+		@Override
+		public boolean moveLeft() {
+			if (k == 0)
+				return false;
+			k--;
+			return true;
+		}
+
+		@Override
+		public Binom<V> back() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveBack() ? binom : null;
+		}
+
+		@Override
+		public Binom<V> down() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveDown() ? binom : null;
+		}
+
+		@Override
+		public Binom<V> next() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveNext() ? binom : null;
+		}
+
+		@Override
+		public Binom<V> up() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveUp() ? binom : null;
+		}
+
+		@Override
+		public Binom<V> right() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveRight() ? binom : null;
+		}
+
+		@Override
+		public Binom<V> left() {
+			Cursor binom = new Cursor(n, k);
+			return binom.moveLeft() ? binom : null;
+		}
+
+		@Override
+		public BinomCursor<V> cursor() {
+			return new Cursor(n, k);
+		}
+
+		@Override
+		public double doubleValue() {
+			return value().doubleValue();
+		}
+
+		@Override
+		public float floatValue() {
+			return value().floatValue();
+		}
+
+		@Override
+		public int intValue() {
+			if (primitive)
+				return (int) BinomArray.this.longValue(n, k);
+			return value().intValue();
+		}
+
+		@Override
+		public long longValue() {
+			if (primitive)
+				return BinomArray.this.longValue(n, k);
+			return value().longValue();
+		}
+
+		@Override
+		public int getRow() {
+			return n;
+		}
+
+		@Override
+		public int getColumn() {
+			return k;
+		}
+
+		public String toString() {
+			return n+" choose "+k+" = "+value();
+		}
+	}
+}
@@ -0,0 +1,343 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the rows of {@link au.com.phiware.math.bankers.Bankers} and the
+ * nodes of {@link BinomGraph}, under one of these policies:
+ * <dl>
+ * <dt>{@link #pinned()}</dt>
+ * <dd>keep everything;</dd>
+ * <dt>{@link #soft()}</dt>
+ * <dd>keep everything until the garbage collector clears it;</dd>
+ * <dt>{@link #lru(long, Weigher)}</dt>
+ * <dd>keep at most capacity, by weight, evicting the least recently used;</dd>
+ * <dt>{@link #lfu(long, Weigher)}</dt>
+ * <dd>keep at most capacity, by weight, evicting the least frequently used.</dd>
+ * </dl>
+ * Every cache counts its hits, misses and evictions, so that it may be sized.
+ * Caches are safe to share between threads, and none takes a lock to look up
+ * a value; the bounded caches take one to cache a value.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public abstract class BinomCache<K, T> {
+	/**
+	 * The cost of a value, against the capacity of a bounded cache.
+	 */
+	public interface Weigher<T> {
+		public long weigh(T value);
+	}
+
+	/**
+	 * Weighs every value as one, so that capacity is a number of entries.
+	 */
+	public static final Weigher<Object> ENTRIES = new Weigher<Object>() {
+		@Override
+		public long weigh(Object value) {
+			return 1;
+		}
+	};
+
+	/**
+	 * Name of the system property that selects the policy of the node caches
+	 * of {@link Binomials#defaultBinomFactory(au.com.phiware.math.ring.BitArithmetic)}:
+	 * <code>soft</code> (the default), <code>pinned</code>,
+	 * <code>lru:</code><i>entries</i> or <code>lfu:</code><i>entries</i>.
+	 * The shared factories of {@link Binomials#sharedBinomFactory(au.com.phiware.math.ring.BitArithmetic)}
+	 * live as long as the process, so a <code>pinned</code> cache holds every
+	 * node that it ever reached until then.
+	 */
+	public static final String POLICY_PROPERTY = "au.com.phiware.math.binom.cache";
+
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+	/**
+	 * @return the value cached for key, or null
+	 */
+	public T get(K key) {
+		T value = lookup(key);
+		(value == null ? misses : hits).increment();
+		return value;
+	}
+
+	protected abstract T lookup(K key);
+
+	/**
+	 * Cache value for key, unless a value is already cached for key.
+	 * @return the value already cached for key, or null if value was cached
+	 */
+	public abstract T putIfAbsent(K key, T value);
+
+	/**
+	 * @return the number of values cached
+	 */
+	public abstract int size();
+
+	/**
+	 * @return the total weight of the values cached, which is their number
+	 * unless the cache is bounded by another {@link Weigher}
+	 */
+	public long getWeight() {
+		return size();
+	}
+
+	public abstract void clear();
+
+	/**
+	 * @return true if this cache may evict a value that is still in use
+	 */
+	public boolean isBounded() {
+		return false;
+	}
+
+	protected void evicted(long count) {
+		evictions.add(count);
+		CacheEvictionEvent event = new CacheEvictionEvent();
+		if (event.shouldCommit()) {
+			event.policy = getClass();
+			event.count = count;
+			event.size = size();
+			event.commit();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public static <K, T> BinomCache<K, T> pinned() {
+		return new Pinned<K, T>();
+	}
+
+	public static <K, T> BinomCache<K, T> soft() {
+		return new Soft<K, T>();
+	}
+
+	public static <K, T> BinomCache<K, T> lru(long capacity, Weigher<? super T> weigher) {
+		return new Bounded<K, T>(capacity, weigher, false);
+	}
+
+	public static <K, T> BinomCache<K, T> lfu(long capacity, Weigher<? super T> weigher) {
+		return new Bounded<K, T>(capacity, weigher, true);
+	}
+
+	/**
+	 * @param policy as described for {@link #POLICY_PROPERTY}
+	 */
+	public static <K, T> BinomCache<K, T> forPolicy(String policy) {
+		if ("pinned".equals(policy))
+			return pinned();
+		if ("soft".equals(policy))
+			return soft();
+		if (policy.matches("(lru|lfu):[0-9]+")) {
+			long capacity = Long.parseLong(policy.substring(4));
+			if (policy.startsWith("lru"))
+				return lru(capacity, ENTRIES);
+			return lfu(capacity, ENTRIES);
+		}
+		throw new IllegalArgumentException("Unknown "+POLICY_PROPERTY+", "+policy+".");
+	}
+
+	private static class Pinned<K, T> extends BinomCache<K, T> {
+		private final ConcurrentMap<K, T> map = new ConcurrentHashMap<K, T>();
+
+		@Override
+		protected T lookup(K key) {
+			return map.get(key);
+		}
+
+		@Override
+		public T putIfAbsent(K key, T value) {
+			return map.putIfAbsent(key, value);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+	}
+
+	/**
+	 * A cleared reference is counted as an eviction when it is next looked up.
+	 */
+	private static class Soft<K, T> extends BinomCache<K, T> {
+		private final ConcurrentMap<K, SoftReference<T>> map = new ConcurrentHashMap<K, SoftReference<T>>();
+
+		@Override
+		protected T lookup(K key) {
+			SoftReference<T> ref = map.get(key);
+			if (ref == null)
+				return null;
+			T value = ref.get();
+			if (value == null && map.remove(key, ref))
+				evicted(1);
+			return value;
+		}
+
+		@Override
+		public T putIfAbsent(K key, T value) {
+			SoftReference<T> created = new SoftReference<T>(value);
+			for (;;) {
+				SoftReference<T> ref = map.putIfAbsent(key, created);
+				if (ref == null)
+					return null;
+				T cached = ref.get();
+				if (cached != null)
+					return cached;
+				if (map.replace(key, ref, created)) {
+					evicted(1);
+					return null;
+				}
+			}
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+	}
+
+	/**
+	 * Holds its entries in a ConcurrentHashMap, so that a lookup takes no
+	 * lock and only marks its entry as used, and in a queue in the order they
+	 * were cached, or last spared. Once it exceeds its capacity, entries are
+	 * taken from the head of the queue: an unused entry is evicted and a used
+	 * one is spared, and moved to the tail. An LRU cache forgets that a
+	 * spared entry was used, as the clock algorithm does, and evicts until it
+	 * is within its capacity; an LFU cache halves its count of uses, so that
+	 * entries that are no longer used eventually go too, and evicts until it
+	 * is within seven eighths of its capacity. Each time an entry is spared
+	 * is paid for by a lookup, so caching a value costs amortised constant
+	 * time, rather than a sort of the cache.
+	 */
+	private static class Bounded<K, T> extends BinomCache<K, T> {
+		private static class Entry<K, T> {
+			final K key;
+			final T value;
+			final long weight;
+			/**
+			 * Updated without a lock, so that concurrent lookups may lose
+			 * counts, which only makes the cache less exact.
+			 */
+			int uses;
+
+			Entry(K key, T value, long weight) {
+				this.key = key;
+				this.value = value;
+				this.weight = weight;
+			}
+		}
+
+		private final long capacity;
+		private final Weigher<? super T> weigher;
+		private final boolean lfu;
+		private final ConcurrentMap<K, Entry<K, T>> map = new ConcurrentHashMap<K, Entry<K, T>>();
+		private final ArrayDeque<Entry<K, T>> queue = new ArrayDeque<Entry<K, T>>();
+		private long weight;
+
+		Bounded(long capacity, Weigher<? super T> weigher, boolean lfu) {
+			if (capacity < 1)
+				throw new IllegalArgumentException("Capacity, "+capacity+", must be positive.");
+			this.capacity = capacity;
+			this.weigher = weigher;
+			this.lfu = lfu;
+		}
+
+		@Override
+		protected T lookup(K key) {
+			Entry<K, T> entry = map.get(key);
+			if (entry == null)
+				return null;
+			if (lfu) {
+				if (entry.uses < Integer.MAX_VALUE)
+					entry.uses++;
+			}
+			else if (entry.uses == 0)
+				entry.uses = 1;
+			return entry.value;
+		}
+
+		@Override
+		public synchronized T putIfAbsent(K key, T value) {
+			Entry<K, T> entry = map.get(key);
+			if (entry != null)
+				return entry.value;
+			entry = new Entry<K, T>(key, value, weigher.weigh(value));
+			map.put(key, entry);
+			queue.addLast(entry);
+			weight += entry.weight;
+			if (weight > capacity)
+				evict(lfu ? capacity - capacity / 8 : capacity);
+			return null;
+		}
+
+		/**
+		 * Evict until the weight is within target.
+		 */
+		private void evict(long target) {
+			long count = 0;
+			int spares = queue.size();
+			while (weight > target && !queue.isEmpty()) {
+				Entry<K, T> entry = queue.pollFirst();
+				if (entry.uses > 0 && spares-- > 0) {
+					entry.uses = lfu ? entry.uses >>> 1 : 0;
+					queue.addLast(entry);
+				} else {
+					map.remove(entry.key, entry);
+					weight -= entry.weight;
+					count++;
+				}
+			}
+			evicted(count);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean isBounded() {
+			return true;
+		}
+
+		@Override
+		public synchronized long getWeight() {
+			return weight;
+		}
+
+		@Override
+		public synchronized void clear() {
+			map.clear();
+			queue.clear();
+			weight = 0;
+		}
+	}
+}
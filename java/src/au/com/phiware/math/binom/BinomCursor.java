@@ -0,0 +1,35 @@
+package au.com.phiware.math.binom;
+
+/**
+ * A {@link Binom} that can be moved about Pascal's triangle in place. Each
+ * move corresponds to the {@link Binom} method of the same name but, rather
+ * than returning a new <code>Binom</code> (or null), the cursor itself is
+ * repositioned (or left where it is).
+ */
+public interface BinomCursor<V extends Number> extends Binom<V> {
+
+	/**
+	 * @return false, without moving, if this.back() would be null
+	 */
+	public abstract boolean moveBack();
+
+	/**
+	 * @return false, without moving, if this.down() would be null
+	 */
+	public abstract boolean moveDown();
+
+	public abstract boolean moveNext();
+
+	public abstract boolean moveUp();
+
+	/**
+	 * @return false, without moving, if this.right() would be null
+	 */
+	public abstract boolean moveRight();
+
+	/**
+	 * @return false, without moving, if this.left() would be null
+	 */
+	public abstract boolean moveLeft();
+
+}
@@ -8,4 +8,13 @@ public interface BinomFactory<V extends Number> {
 
 	public abstract BitArithmetic<V> getArithmetic();
 
+	/**
+	 * Compute every row of the triangle up to and including row n now,
+	 * rather than as each is first reached.
+	 */
+	public default void prewarm(int n) {
+		for (int k = 0; k <= n / 2; k++)
+			createBinom(n, k).value();
+	}
+
 }
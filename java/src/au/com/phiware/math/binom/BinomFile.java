@@ -0,0 +1,403 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.BitArithmetic;
+
+/**
+ * Holds rows of Pascal's triangle in a memory-mapped file, for lengths whose
+ * triangle would not fit in the heap. Only the rows at which {@link Binom}s
+ * are created are stored; a cursor derives every other value exactly from
+ * the value it is at, e.g. moving down from n choose k multiplies by n - k
+ * and divides by n. Each move costs a multiplication and a division by a small
+ * integer, linear in the length of the value, and nothing is held but the
+ * value itself.
+ *
+ * The file begins with a header and a directory of the offset of each row,
+ * or zero for rows not yet stored. Each row is appended as it is first
+ * reached, folded in half as {@link BinomArray}, with a table of the offset of
+ * each column, followed by n choose k and the sum of n choose 0...k for each
+ * k &lt;= n / 2, both as a length-prefixed big-endian magnitude:
+ * <pre>
+ * file: "BINOMROW" version:int rows:int offset:long[rows] row...
+ * row:  n:int columns:int size:int offset:int[columns] (length:int magnitude:byte[length])...
+ * </pre>
+ * Rows are paged in on demand and the file may be reopened, by one process at
+ * a time, to reuse the rows already stored.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomFile implements BinomFactory<BigInteger>, Closeable {
+	private static final long MAGIC = 0x42494E4F4D524F57L;
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	private static final int ROW_HEADER = 12;
+
+	public static final int DEFAULT_ROWS = 1 << 16;
+
+	private final BigIntegerArithmetic arithmetic = BigIntegerArithmetic.getInstance();
+	private final FileChannel channel;
+	private final MappedByteBuffer directory;
+	private final int maxRows;
+	private final ConcurrentMap<Integer, ByteBuffer> rows = new ConcurrentHashMap<Integer, ByteBuffer>();
+
+	public BinomFile(Path path) throws IOException {
+		this(path, DEFAULT_ROWS);
+	}
+
+	/**
+	 * @param maxRows the number of rows of a new file; an existing file keeps
+	 * the number it was created with
+	 */
+	public BinomFile(Path path, int maxRows) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			if (channel.size() == 0) {
+				if (maxRows < 1)
+					throw new IllegalArgumentException("Rows, "+maxRows+", must be positive.");
+				header.putLong(MAGIC).putInt(VERSION).putInt(maxRows).flip();
+				write(header, 0);
+			} else {
+				while (header.hasRemaining())
+					if (channel.read(header, header.position()) < 0)
+						throw new IOException("Not a binom file: "+path);
+				header.flip();
+				if (header.getLong() != MAGIC || header.getInt() != VERSION)
+					throw new IOException("Not a binom file: "+path);
+				maxRows = header.getInt();
+			}
+			this.maxRows = maxRows;
+			directory = channel.map(FileChannel.MapMode.READ_WRITE, HEADER, 8L * maxRows);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public BitArithmetic<BigInteger> getArithmetic() {
+		return arithmetic;
+	}
+
+	/**
+	 * @return the number of rows this file can hold
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	@Override
+	public Binom<BigInteger> createBinom(int n, int k) {
+		if (n < 0 || k < 0 || k > n)
+			throw new IllegalArgumentException(MessageFormat.format("Undefined value for n = {0} and k = {1}.", n, k));
+		return new Cursor(n, k, value(row(n), Math.min(k, n - k), 0));
+	}
+
+	/**
+	 * Stores row n, if it is not already stored.
+	 */
+	@Override
+	public void prewarm(int n) {
+		row(n);
+	}
+
+	/**
+	 * @return true if row n is stored in this file
+	 */
+	public synchronized boolean contains(int n) {
+		return rows.containsKey(n) || n >= 0 && n < maxRows && directory.getLong(8 * n) != 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		rows.clear();
+		channel.close();
+	}
+
+	private ByteBuffer row(int n) {
+		ByteBuffer row = rows.get(n);
+		if (row == null) {
+			try {
+				row = map(n);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			ByteBuffer mapped = rows.putIfAbsent(n, row);
+			if (mapped != null)
+				row = mapped;
+		}
+		return row;
+	}
+
+	private synchronized ByteBuffer map(int n) throws IOException {
+		if (n >= maxRows)
+			throw new IllegalArgumentException("Row, "+n+", must be less than "+maxRows+".");
+		long offset = directory.getLong(8 * n);
+		if (offset == 0)
+			offset = store(n);
+		ByteBuffer header = ByteBuffer.allocate(ROW_HEADER);
+		while (header.hasRemaining())
+			channel.read(header, offset + header.position());
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, header.getInt(8));
+	}
+
+	/**
+	 * Appends row n, computing n choose j + 1 as n choose j times n - j over j + 1.
+	 * The directory is updated only once the row is written.
+	 */
+	private long store(int n) throws IOException {
+		long offset = channel.size();
+		int columns = n / 2 + 1;
+		long position = ROW_HEADER + 4L * columns;
+		int[] offsets = new int[columns];
+
+		channel.position(offset + position);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+		BigInteger value = BigInteger.ONE, sum = BigInteger.ONE;
+		for (int j = 0; j < columns; j++) {
+			if (j > 0) {
+				value = value.multiply(BigInteger.valueOf(n - j + 1)).divide(BigInteger.valueOf(j));
+				sum = sum.add(value);
+			}
+			offsets[j] = (int) position;
+			position += write(out, value);
+			position += write(out, sum);
+			if (position > Integer.MAX_VALUE) {
+				channel.truncate(offset);
+				throw new IllegalArgumentException("Row, "+n+", is too long to map.");
+			}
+		}
+		out.flush();
+
+		ByteBuffer header = ByteBuffer.allocate(ROW_HEADER + 4 * columns);
+		header.putInt(n).putInt(columns).putInt((int) position);
+		header.asIntBuffer().put(offsets);
+		write(header, offset);
+		channel.force(false);
+
+		directory.putLong(8 * n, offset);
+		directory.force();
+		return offset;
+	}
+
+	private static int write(DataOutputStream out, BigInteger value) throws IOException {
+		byte[] magnitude = value.toByteArray();
+		out.writeInt(magnitude.length);
+		out.write(magnitude);
+		return 4 + magnitude.length;
+	}
+
+	private void write(ByteBuffer buffer, long position) throws IOException {
+		buffer.rewind();
+		while (buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+	}
+
+	/**
+	 * @param skip 0 for the value, 1 for the sum
+	 */
+	private static BigInteger value(ByteBuffer row, int j, int skip) {
+		ByteBuffer buffer = row.duplicate();
+		buffer.position(row.getInt(ROW_HEADER + 4 * j));
+		for (;;) {
+			byte[] magnitude = new byte[buffer.getInt()];
+			if (skip-- == 0) {
+				buffer.get(magnitude);
+				return new BigInteger(1, magnitude);
+			}
+			buffer.position(buffer.position() + magnitude.length);
+		}
+	}
+
+	private static BigInteger multiply(BigInteger value, int numerator, int denominator) {
+		return value.multiply(BigInteger.valueOf(numerator)).divide(BigInteger.valueOf(denominator));
+	}
+
+	/**
+	 * A position in the triangle, and the value there; n and k are never folded.
+	 */
+	protected class Cursor implements BinomCursor<BigInteger> {
+		private int n, k;
+		private BigInteger value;
+
+		Cursor(int n, int k, BigInteger value) {
+			this.n = n;
+			this.k = k;
+			this.value = value;
+		}
+
+		@Override
+		public BigInteger value() {
+			return value;
+		}
+
+		/**
+		 * Read from the file if this row is stored, otherwise summed from the
+		 * value here, leftward.
+		 */
+		@Override
+		public BigInteger sum() {
+			if (k == n)
+				return BigInteger.ONE.shiftLeft(n);
+			ByteBuffer row = rows.get(n);
+			if (row != null) {
+				if (k <= n / 2)
+					return BinomFile.value(row, k, 1);
+				return BigInteger.ONE.shiftLeft(n).subtract(BinomFile.value(row, n - k - 1, 1));
+			}
+			BigInteger sum = value, v = value;
+			for (int j = k; j > 0; j--) {
+				v = multiply(v, j, n - j + 1);
+				sum = sum.add(v);
+			}
+			return sum;
+		}
+
+		@Override
+		public boolean moveBack() {
+			if (k == 0)
+				return false;
+			value = multiply(value, k, n);
+			n--;
+			k--;
+			return true;
+		}
+
+		@Override
+		public boolean moveDown() {
+			if (k == n)
+				return false;
+			value = multiply(value, n - k, n);
+			n--;
+			return true;
+		}
+
+		@Override
+		public boolean moveNext() {
+			n++;
+			k++;
+			value = multiply(value, n, k);
+			return true;
+		}
+
+		@Override
+		public boolean moveUp() {
+			n++;
+			value = multiply(value, n, n - k);
+			return true;
+		}
+
+		@Override
+		public boolean moveRight() {
+			if (k == n)
+				return false;
+			value = multiply(value, n - k, k + 1);
+			k++;
+			return true;
+		}
+
+		@Override
+		public boolean moveLeft() {
+			if (k == 0)
+				return false;
+			value = multiply(value, k, n - k + 1);
+			k--;
+			return true;
+		}
+
+		@Override
+		public Binom<BigInteger> back() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveBack() ? binom : null;
+		}
+
+		@Override
+		public Binom<BigInteger> down() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveDown() ? binom : null;
+		}
+
+		@Override
+		public Binom<BigInteger> next() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveNext() ? binom : null;
+		}
+
+		@Override
+		public Binom<BigInteger> up() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveUp() ? binom : null;
+		}
+
+		@Override
+		public Binom<BigInteger> right() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveRight() ? binom : null;
+		}
+
+		@Override
+		public Binom<BigInteger> left() {
+			Cursor binom = new Cursor(n, k, value);
+			return binom.moveLeft() ? binom : null;
+		}
+
+		@Override
+		public BinomCursor<BigInteger> cursor() {
+			return new Cursor(n, k, value);
+		}
+
+		@Override
+		public double doubleValue() {
+			return value.doubleValue();
+		}
+
+		@Override
+		public float floatValue() {
+			return value.floatValue();
+		}
+
+		@Override
+		public int intValue() {
+			return value.intValue();
+		}
+
+		@Override
+		public long longValue() {
+			return value.longValue();
+		}
+
+		@Override
+		public int getRow() {
+			return n;
+		}
+
+		@Override
+		public int getColumn() {
+			return k;
+		}
+
+		public String toString() {
+			return n+" choose "+k+" = "+value;
+		}
+	}
+}
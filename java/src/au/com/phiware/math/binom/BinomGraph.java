@@ -3,11 +3,21 @@
  */
 package au.com.phiware.math.binom;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.ref.SoftReference;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,10 +40,20 @@ import au.com.phiware.math.ring.LongArithmetic;
  *       / |
  *  1:  1  1
  *   
+ * Nodes are shared by every BinomGraph that is created by the same factory
+ * and are published without locking: a node's value, sums and links are only
+ * ever set to the same (canonical) result, so racing threads may duplicate work
+ * but never disagree. A factory may be shared between threads; a BinomGraph
+ * that is used as a {@link BinomCursor} may not.
+ *
+ * By default a factory holds its nodes softly, as the garbage collector may
+ * reclaim any node that no live graph links to; a factory that should keep
+ * every node must be given a {@link BinomCache#pinned()} cache.
+ *
  * @author Corin Lawson <me@corinlawson.com.au>
  *
  */
-public class BinomGraph<V extends Number> extends Number implements Binom<V>, BinomFactory<V> {
+public class BinomGraph<V extends Number> extends Number implements BinomCursor<V>, BinomFactory<V> {
 	private static final long serialVersionUID = -8905223911595724921L;
 	private static final Logger log = LoggerFactory.getLogger(BinomGraph.class);
 
@@ -44,18 +64,22 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 
 	@Override
 	public Binom<V> createBinom(int n, int k) {
-		return new BinomGraph<V>(arithmetics, n, k);
+		return new BinomGraph<V>(this, n, k);
 	}
 
-	protected Binom<V> createBinom(BinomNode node, boolean folded) {
-		return new BinomGraph<V>(arithmetics, node, folded);
+	protected BinomGraph<V> createBinom(BinomNode node, boolean folded) {
+		return new BinomGraph<V>(this, node, folded);
 	}
 	
 	protected class BinomNode {
-		V value;
-		int n, k;
-		SoftReference<BinomNode> up, next;
-		BinomNode down, back;
+		volatile V value;
+		/**
+		 * The memoized {@link BinomGraph#sum()} of this node, unfolded and folded.
+		 */
+		volatile V sum, foldedSum;
+		final int n, k;
+		volatile SoftReference<BinomNode> up, next;
+		volatile BinomNode down, back;
 		
 		public BinomNode up() {
 			if (up != null)
@@ -119,7 +143,14 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 		}
 	}
 
-	private Map<Long, BinomNode> foldedNodes = new WeakHashMap<Long, BinomNode>();
+	private final BinomCache<Long, Object> foldedNodes;
+	/**
+	 * The nodes reached by the build in progress on each thread, when the
+	 * cache is bounded, so that the build shares its nodes even when the
+	 * cache evicts them; otherwise a build is exponential.
+	 */
+	private final ThreadLocal<Map<Long, BinomNode>> building;
+	@SuppressWarnings("unchecked")
 	protected BinomNode createNode(int n, int k) {
 		long key = (((long) n + 1) * ((long) n + 1)) / 4 + k;
 		if (k > n / 2)
@@ -127,41 +158,29 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 		if (key >= (((long) n + 2) * ((long) n + 2)) / 4)
 			throw new IndexOutOfBoundsException("Row: "+n+", Column: "+k+" -> "+key+".");
 
-		BinomNode node = foldedNodes.get(key);
+		Map<Long, BinomNode> built = building == null ? null : building.get();
+		BinomNode node = built == null ? null : built.get(key);
+		if (node != null)
+			return node;
+
+		node = (BinomNode) foldedNodes.get(key);
 		log.debug("{} choose {}", n,k);
 		if (node == null) {
-			count(n, k);
-			node = new BinomNode(n, k);
-			foldedNodes.put(key, node);
+			BinomNode created = new BinomNode(n, k);
+			node = (BinomNode) foldedNodes.putIfAbsent(key, created);
+			if (node == null) {
+				BinomMetrics metrics = Binomials.getMetrics();
+				if (metrics != null)
+					metrics.nodeCreated(n, k, NODE_BYTES.weigh(created));
+				node = created;
+			}
 		}
+		if (built != null)
+			built.put(key, node);
 		return node;
 	}
 	
-	private static final Method DISABLED;
-	private static final Method counter;
-	static {
-		Method method = null;
-		try {
-			method = BinomGraph.class.getDeclaredMethod("count", Integer.class, Integer.class);
-		} catch (Exception e) {}
-		DISABLED = method;
-		try {
-			Class<?> counterClass = ClassLoader.getSystemClassLoader().loadClass("au.com.phiware.math.binom.BinomCounter");
-			method = counterClass.getDeclaredMethod("increment", Integer.class, Integer.class);
-			method.invoke(null, -1, -1);
-		} catch (Exception notFoundNorWorking) {
-			method = DISABLED;
-		}
-		counter = method;
-	}
-	private static void count(Integer n, Integer k) {
-		if (counter != DISABLED)
-			try {
-				counter.invoke(null, n, k);
-			} catch (Exception ignore) {}
-	}
-
-	BitArithmetic<V> arithmetics;
+	final BitArithmetic<V> arithmetics;
 	BinomNode root;
 	boolean folded = false;
 	
@@ -169,6 +188,10 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 		this(arithmetics);
 		setupRoot(n, k);
 	}
+	private BinomGraph(BinomGraph<V> graph, int n, int k) {
+		this(graph.arithmetics, graph.foldedNodes, graph.building);
+		setupRoot(n, k);
+	}
 	private void setupRoot(int n, int k) {
 		if (n < 0 || k < 0 || k > n)
 			throw new IllegalArgumentException(MessageFormat.format("Undefined value for n = {0} and k = {1}.", n, k));
@@ -180,23 +203,56 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 			root = createNode(n, k);
 	}
 	
-	private BinomGraph(BitArithmetic<V> arithmetics, BinomNode node, boolean folded) {
-		this(arithmetics);
+	private BinomGraph(BinomGraph<V> graph, BinomNode node, boolean folded) {
+		this(graph.arithmetics, graph.foldedNodes, graph.building);
 		root = node;
 		this.folded = folded;
 	}
 
 	public BinomGraph(BitArithmetic<V> arithmetic) {
+		this(arithmetic, BinomCache.<Long, Object>soft());
+	}
+
+	/**
+	 * @param foldedNodes the cache of the nodes of this factory; a node that
+	 * it evicts is only collected once no cached node links to it, and is
+	 * created anew (with its value) when next reached by its key
+	 */
+	public BinomGraph(BitArithmetic<V> arithmetic, BinomCache<Long, Object> foldedNodes) {
+		this(arithmetic, foldedNodes, foldedNodes.isBounded() ? new ThreadLocal<Map<Long, BinomNode>>() : null);
+	}
+
+	private BinomGraph(BitArithmetic<V> arithmetic, BinomCache<Long, Object> foldedNodes, ThreadLocal<Map<Long, BinomNode>> building) {
 		this.arithmetics = arithmetic;
+		this.foldedNodes = foldedNodes;
+		this.building = building;
+	}
+
+	/**
+	 * @return the cache of the nodes of this factory, shared by its binoms
+	 */
+	public BinomCache<Long, Object> getNodeCache() {
+		return foldedNodes;
 	}
 
+	/**
+	 * Estimates the bytes held by a node of row n: its fields and a value of
+	 * up to n bits.
+	 */
+	public static final BinomCache.Weigher<Object> NODE_BYTES = new BinomCache.Weigher<Object>() {
+		@Override
+		public long weigh(Object node) {
+			return 96 + ((BinomGraph<?>.BinomNode) node).n / 8;
+		}
+	};
+
 	/* (non-Javadoc)
 	 * @see au.com.phiware.math.binom.Binom#value()
 	 */
 	@Override
 	public V value() {
 		if (root.value == null)
-			buildNode(root);
+			build(root);
 		return root.value;
 	}
 	
@@ -209,22 +265,35 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 	 */
 	@Override
 	public V sum() {
+		V sum = folded ? root.foldedSum : root.sum;
+		if (sum == null) {
+			sum = sum(root, folded);
+			if (folded)
+				root.foldedSum = sum;
+			else
+				root.sum = sum;
+		}
+		return sum;
+	}
+
+	private V sum(BinomNode root, boolean folded) {
 		if (root.value == null)
-			buildNode(root);
+			build(root);
 		V sum = root.value;
-		boolean folded = this.folded;
 		if (root.k == (folded ? 0 : root.n))
 			sum = shiftLeft(one(), root.n);
 		else if (root.k != 0) {
-			BinomNode step = folded ? downNode(root) : root.back();
+			BinomNode step = folded ? downNode(root) : backNode(root);
 			if (step != null) {
 				sum = add(sum, one());
 				int i = 0,
 				    max = folded ? step.n - step.k : step.k;
 				while (i < max) {
 					if (step.n % 2 == 0 && step.k == step.n / 2) folded = false;
+					if (step.value == null)
+						build(step);
 					sum = add(sum, shiftLeft(add(step.value, one()), i++));
-					step = folded ? downNode(step) : step.back();
+					step = folded ? downNode(step) : backNode(step);
 				}
 			}
 		}
@@ -232,26 +301,155 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 		return sum;
 	}
 
+	private V build(BinomNode node) {
+		if (building == null || building.get() != null)
+			return buildNode(node);
+		building.set(new HashMap<Long, BinomNode>());
+		try {
+			return buildNode(node);
+		} finally {
+			building.remove();
+		}
+	}
+
+	/**
+	 * Build node without recursion: first walk down, a row at a time, to
+	 * the nodes that it needs and that have no value, then sum each row on
+	 * the way back up.
+	 */
 	private V buildNode(BinomNode node) {
-		if (node.n <= 1 || node.k == 0 || node.k == node.n)
-			return node.value = one();
+		TriangleBuildEvent event = new TriangleBuildEvent();
+		event.begin();
 		log.debug("{} choose {} = ?", new Object[]{node.n,node.k});
-		
-		backNode(node);
-		downNode(node);
-		
-		V a, b;
-		if ((a = node.back.value) == null)
-			a = buildNode(node.back);
-		if ((b = node.down.value) == null)
-			b = buildNode(node.down);
 
-		node.value = add(b, a);
+		List<List<BinomNode>> rows = new ArrayList<List<BinomNode>>();
+		List<BinomNode> row = Collections.singletonList(node);
+		while (!row.isEmpty()) {
+			rows.add(row);
+			Set<BinomNode> below = new LinkedHashSet<BinomNode>();
+			for (BinomNode parent : row)
+				if (!isOne(parent)) {
+					needs(backNode(parent), below);
+					needs(downNode(parent), below);
+				}
+			row = new ArrayList<BinomNode>(below);
+		}
+
+		for (int m = rows.size() - 1; m >= 0; m--)
+			sumRow(rows.get(m));
+
+		if (event.shouldCommit()) {
+			event.n = node.n;
+			event.k = node.k;
+			event.rows = rows.size();
+			for (List<BinomNode> r : rows)
+				event.nodes += r.size();
+			event.arithmetic = arithmetics.getClass();
+			event.commit();
+		}
+
 		log.debug("{} choose {} = {}", new Object[]{node.n, node.k, node.value});
 
 		return node.value;
 	}
-	
+
+	private void needs(BinomNode child, Set<BinomNode> below) {
+		if (child.value == null) {
+			if (isOne(child))
+				child.value = one();
+			else
+				below.add(child);
+		}
+	}
+
+	private boolean isOne(BinomNode node) {
+		return node.n <= 1 || node.k == 0 || node.k == node.n;
+	}
+
+	/**
+	 * Set the value of each node of a row from the row below, in parallel
+	 * for wide rows of a non-primitive arithmetic.
+	 */
+	private void sumRow(List<BinomNode> row) {
+		Stream<BinomNode> nodes = row.stream();
+		if (row.size() >= Binomials.PARALLEL_COLUMNS && !Binomials.isPrimitive(arithmetics))
+			nodes = nodes.parallel();
+		nodes.forEach(new Consumer<BinomNode>() {
+			@Override
+			public void accept(BinomNode node) {
+				if (node.value == null)
+					node.value = isOne(node) ? one() : add(node.down.value, node.back.value);
+			}
+		});
+	}
+
+	/**
+	 * Build every node of the rows up to and including row n, a row at a time.
+	 */
+	@Override
+	public void prewarm(int n) {
+		TriangleBuildEvent event = new TriangleBuildEvent();
+		event.begin();
+		for (int m = 0; m <= n; m++) {
+			List<BinomNode> row = new ArrayList<BinomNode>(m / 2 + 1);
+			for (int k = 0; k <= m / 2; k++) {
+				BinomNode node = createNode(m, k);
+				if (node.value == null && !isOne(node)) {
+					if (backNode(node).value == null)
+						build(node.back);
+					if (downNode(node).value == null)
+						build(node.down);
+				}
+				row.add(node);
+			}
+			sumRow(row);
+		}
+		if (event.shouldCommit()) {
+			event.n = n;
+			event.k = -1;
+			event.rows = n + 1;
+			event.nodes = BinomArray.fold(n + 1, 0);
+			event.arithmetic = arithmetics.getClass();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Write the value of every node of the rows up to and including row n,
+	 * building them first, to a snapshot at path, which {@link #load(Path)}
+	 * restores. The node graph itself is not saved; its links are made again
+	 * as they are followed.
+	 */
+	public void save(Path path, int n) throws IOException {
+		prewarm(n);
+		BinomSnapshot<V> snapshot = new BinomSnapshot<V>(arithmetics);
+		try (DataOutputStream out = snapshot.create(path, n)) {
+			for (int m = 0; m <= n; m++)
+				for (int k = 0; k <= m / 2; k++)
+					snapshot.write(out, createBinom(m, k).value());
+		}
+	}
+
+	/**
+	 * Create the nodes of the snapshot at path, with their values, so that
+	 * no node of its rows need be built. A bounded node cache keeps only as
+	 * many as it holds.
+	 * @return the last row of the snapshot
+	 */
+	public int load(Path path) throws IOException {
+		BinomSnapshot<V> snapshot = new BinomSnapshot<V>(arithmetics);
+		ByteBuffer buffer = snapshot.read(path);
+		int n = buffer.getInt();
+		for (int m = 0; m <= n; m++)
+			for (int k = 0; k <= m / 2; k++) {
+				V value = snapshot.read(buffer);
+				BinomNode node = createNode(m, k);
+				if (node.value == null)
+					node.value = value;
+			}
+		return n;
+	}
+
 	private BinomNode backNode(BinomNode root) {
 		BinomNode //step,
 		          node = root.back();
@@ -342,86 +540,147 @@ public class BinomGraph<V extends Number> extends Number implements Binom<V>, Bi
 	 */
 	@Override
 	public Binom<V> back() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveBack() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#down()
+	 */
+	@Override
+	public Binom<V> down() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveDown() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#next()
+	 */
+	@Override
+	public Binom<V> next() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveNext() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#up()
+	 */
+	@Override
+	public Binom<V> up() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveUp() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#right()
+	 */
+	@Override
+	public Binom<V> right() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveRight() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#left()
+	 */
+	@Override
+	public Binom<V> left() {
+		BinomGraph<V> binom = createBinom(root, folded);
+		return binom.moveLeft() ? binom : null;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.Binom#cursor()
+	 */
+	@Override
+	public BinomCursor<V> cursor() {
+		return createBinom(root, folded);
+	}
+
+	private boolean move(BinomNode node, boolean folded) {
+		this.root = node;
+		this.folded = folded;
+		return true;
+	}
+	/* (non-Javadoc)
+	 * @see au.com.phiware.math.binom.BinomCursor#moveBack()
+	 */
+	@Override
+	public boolean moveBack() {
 		BinomNode node;
 		if (folded) {
 			if ((node = downNode(root)) != null)
-				return createBinom(node, root.n - root.k - 1 > (root.n - 1) / 2);
+				return move(node, root.n - root.k - 1 > (root.n - 1) / 2);
 		} else
 			if ((node = backNode(root)) != null)
-				return createBinom(node, false);
+				return move(node, false);
 		
-		return null;
+		return false;
 	}
 	/* (non-Javadoc)
-	 * @see au.com.phiware.math.binom.Binom#down()
+	 * @see au.com.phiware.math.binom.BinomCursor#moveDown()
 	 */
 	@Override
-	public Binom<V> down() {
+	public boolean moveDown() {
 		BinomNode node;
 		if (folded || root.k > (root.n - 1) / 2) {
 			if ((node = backNode(root)) != null)
-				return createBinom(node, true);
+				return move(node, true);
 		} else
 			if ((node = downNode(root)) != null)
-				return createBinom(node, false);
+				return move(node, false);
 		
-		return null;
+		return false;
 	}
 	/* (non-Javadoc)
-	 * @see au.com.phiware.math.binom.Binom#next()
+	 * @see au.com.phiware.math.binom.BinomCursor#moveNext()
 	 */
 	@Override
-	public Binom<V> next() {
+	public boolean moveNext() {
 		if (folded || root.k + 1 > (root.n + 1) / 2)
-			return createBinom(upNode(root), true);
+			return move(upNode(root), true);
 		else
-			return createBinom(nextNode(root), false);
+			return move(nextNode(root), false);
 	}
 	/* (non-Javadoc)
-	 * @see au.com.phiware.math.binom.Binom#up()
+	 * @see au.com.phiware.math.binom.BinomCursor#moveUp()
 	 */
 	@Override
-	public Binom<V> up() {
-		return createBinom(folded ? nextNode(root) : upNode(root), folded);
+	public boolean moveUp() {
+		return move(folded ? nextNode(root) : upNode(root), folded);
 	}
 	
 	/* (non-Javadoc)
-	 * @see au.com.phiware.math.binom.Binom#right()
+	 * @see au.com.phiware.math.binom.BinomCursor#moveRight()
 	 */
 	@Override
-	public Binom<V> right() {
+	public boolean moveRight() {
 		BinomNode node;
 		if (folded || root.k > (root.n - 1) / 2) {
 			if ((node = backNode(root)) != null)
-				return createBinom(upNode(node), true);
+				return move(upNode(node), true);
 		} else
 			if ((node = downNode(root)) != null) {
 				if (root.k + 1 > root.n / 2)
-					return createBinom(upNode(node), true);
+					return move(upNode(node), true);
 				else
-					return createBinom(nextNode(node), false);
+					return move(nextNode(node), false);
 			}
 		
-		return null;
+		return false;
 	}
 	/* (non-Javadoc)
-	 * @see au.com.phiware.math.binom.Binom#left()
+	 * @see au.com.phiware.math.binom.BinomCursor#moveLeft()
 	 */
 	@Override
-	public Binom<V> left() {
+	public boolean moveLeft() {
 		BinomNode node;
 		if (folded) {
 			if ((node = downNode(root)) != null) {
 				if (root.n - root.k - 1 > (root.n - 1) / 2)
-					return createBinom(nextNode(node), true);
+					return move(nextNode(node), true);
 				else
-					return createBinom(upNode(node), false);
+					return move(upNode(node), false);
 			}
 		} else
 			if ((node = backNode(root)) != null)
-				return createBinom(upNode(node), false);
+				return move(upNode(node), false);
 		
-		return null;
+		return false;
 	}
 
 	/* (non-Javadoc)
@@ -0,0 +1,42 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+/**
+ * Receives the events of the triangles of {@link BinomGraph} and of the
+ * conversions of {@link au.com.phiware.math.bankers.Bankers}, once installed
+ * with {@link Binomials#setMetrics(BinomMetrics)}. While none is installed an
+ * event costs one read of a volatile field, and conversions are not timed.
+ * Events are delivered on the thread that caused them, so an implementation
+ * must be thread safe and quick; see {@link BinomMetricsRecorder}.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public interface BinomMetrics {
+	public enum Operation {
+		TO, FROM, NEXT
+	}
+
+	/**
+	 * A node of the triangle was created for n choose k, of about bytes.
+	 */
+	public void nodeCreated(int n, int k, long bytes);
+
+	/**
+	 * count nodes of the triangle were created at once, of about bytes in all.
+	 */
+	public void nodesCreated(long count, long bytes);
+
+	/**
+	 * A row of a {@link au.com.phiware.math.bankers.Bankers} was looked up in
+	 * its row cache.
+	 */
+	public void rowLookup(boolean hit);
+
+	/**
+	 * count conversions took nanos, in all.
+	 */
+	public void operation(Operation operation, int count, long nanos);
+}
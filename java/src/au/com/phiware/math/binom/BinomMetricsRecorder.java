@@ -0,0 +1,213 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the totals of {@link BinomMetrics} events in {@link LongAdder}s, and
+ * a histogram of the latency of each operation in buckets of powers of two,
+ * to be pulled by its getters or exported to JMX by {@link #register()}. A
+ * batch of conversions is counted in the bucket of its mean latency.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomMetricsRecorder implements BinomMetrics, BinomMetricsRecorderMXBean {
+	/**
+	 * The name that {@link #register()} registers under.
+	 */
+	public static final String OBJECT_NAME = "au.com.phiware.math:type=BinomMetrics";
+
+	private final LongAdder nodes = new LongAdder(), bytes = new LongAdder();
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+	private final LongAdder[] counts = adders(Operation.values().length);
+	private final LongAdder[] nanos = adders(Operation.values().length);
+	private final LongAdder[][] latencies = new LongAdder[Operation.values().length][];
+
+	public BinomMetricsRecorder() {
+		for (int i = 0; i < latencies.length; i++)
+			latencies[i] = adders(Long.SIZE);
+	}
+
+	private static LongAdder[] adders(int size) {
+		LongAdder[] adders = new LongAdder[size];
+		for (int i = 0; i < size; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+	private static long[] sums(LongAdder[] adders) {
+		long[] sums = new long[adders.length];
+		for (int i = 0; i < adders.length; i++)
+			sums[i] = adders[i].sum();
+		return sums;
+	}
+
+	@Override
+	public void nodeCreated(int n, int k, long bytes) {
+		nodes.increment();
+		this.bytes.add(bytes);
+	}
+
+	@Override
+	public void nodesCreated(long count, long bytes) {
+		nodes.add(count);
+		this.bytes.add(bytes);
+	}
+
+	@Override
+	public void rowLookup(boolean hit) {
+		(hit ? hits : misses).increment();
+	}
+
+	@Override
+	public void operation(Operation operation, int count, long nanos) {
+		int i = operation.ordinal();
+		counts[i].add(count);
+		this.nanos[i].add(nanos);
+		latencies[i][Long.SIZE - Long.numberOfLeadingZeros(nanos / Math.max(count, 1))].add(count);
+	}
+
+	/**
+	 * Install this recorder with {@link Binomials#setMetrics(BinomMetrics)}
+	 * and register it with the platform MBean server.
+	 * @return the name it is registered under
+	 */
+	public ObjectName register() throws JMException {
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+		server.registerMBean(this, name);
+		Binomials.setMetrics(this);
+		return name;
+	}
+
+	/**
+	 * Unregister this recorder, and uninstall it if it is installed.
+	 */
+	public void unregister() throws JMException {
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+		if (Binomials.getMetrics() == this)
+			Binomials.setMetrics(null);
+	}
+
+	public long getCount(Operation operation) {
+		return counts[operation.ordinal()].sum();
+	}
+
+	public long getNanos(Operation operation) {
+		return nanos[operation.ordinal()].sum();
+	}
+
+	public long[] getLatencies(Operation operation) {
+		return sums(latencies[operation.ordinal()]);
+	}
+
+	/**
+	 * @return the bound, in nanoseconds, of the bucket of the histogram of
+	 * operation that holds the quantile q, or 0 if there were none
+	 */
+	public long getLatencyQuantile(Operation operation, double q) {
+		long[] latencies = getLatencies(operation);
+		long total = 0;
+		for (long count : latencies)
+			total += count;
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(q * total));
+		int i = 0;
+		while ((rank -= latencies[i]) > 0)
+			i++;
+		return 1L << i;
+	}
+
+	@Override
+	public long getNodesCreated() {
+		return nodes.sum();
+	}
+
+	@Override
+	public long getTriangleBytes() {
+		return bytes.sum();
+	}
+
+	@Override
+	public long getRowCacheHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public long getRowCacheMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public long getToCount() {
+		return getCount(Operation.TO);
+	}
+
+	@Override
+	public long getFromCount() {
+		return getCount(Operation.FROM);
+	}
+
+	@Override
+	public long getNextCount() {
+		return getCount(Operation.NEXT);
+	}
+
+	@Override
+	public long getToNanos() {
+		return getNanos(Operation.TO);
+	}
+
+	@Override
+	public long getFromNanos() {
+		return getNanos(Operation.FROM);
+	}
+
+	@Override
+	public long getNextNanos() {
+		return getNanos(Operation.NEXT);
+	}
+
+	@Override
+	public long[] getToLatencies() {
+		return getLatencies(Operation.TO);
+	}
+
+	@Override
+	public long[] getFromLatencies() {
+		return getLatencies(Operation.FROM);
+	}
+
+	@Override
+	public long[] getNextLatencies() {
+		return getLatencies(Operation.NEXT);
+	}
+
+	@Override
+	public void reset() {
+		nodes.reset();
+		bytes.reset();
+		hits.reset();
+		misses.reset();
+		for (int i = 0; i < counts.length; i++) {
+			counts[i].reset();
+			nanos[i].reset();
+			for (LongAdder latency : latencies[i])
+				latency.reset();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+/**
+ * The attributes of a {@link BinomMetricsRecorder}, as exported to JMX.
+ * Each latency histogram counts the conversions of between
+ * 2<sup>i - 1</sup> and 2<sup>i</sup> nanoseconds at index i.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public interface BinomMetricsRecorderMXBean {
+	public long getNodesCreated();
+	public long getTriangleBytes();
+	public long getRowCacheHits();
+	public long getRowCacheMisses();
+
+	public long getToCount();
+	public long getFromCount();
+	public long getNextCount();
+
+	public long getToNanos();
+	public long getFromNanos();
+	public long getNextNanos();
+
+	public long[] getToLatencies();
+	public long[] getFromLatencies();
+	public long[] getNextLatencies();
+
+	public void reset();
+}
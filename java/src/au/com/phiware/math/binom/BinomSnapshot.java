@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import au.com.phiware.math.ring.AdaptiveArithmetic;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.ByteArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.Limbs;
+import au.com.phiware.math.ring.LimbsArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * The snapshot format of {@link BinomGraph#save(Path, int)} and
+ * {@link BinomArray#save(Path, int)}: a header, then the values of rows 0 to n,
+ * folded in half as {@link BinomArray}, each as a length-prefixed big-endian
+ * magnitude (or as a long, for the primitive arithmetics).
+ * <pre>
+ * "BINOMSNP" version:int bits:int n:int (length:int magnitude:byte[length])...
+ * </pre>
+ * A snapshot is read with one bulk read and may only be loaded into a factory
+ * of an arithmetic of the same number of bits.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+final class BinomSnapshot<V extends Number> {
+	private static final long MAGIC = 0x42494E4F4D534E50L;
+	private static final int VERSION = 1;
+
+	private final BitArithmetic<V> arithmetic;
+
+	BinomSnapshot(BitArithmetic<V> arithmetic) {
+		this.arithmetic = arithmetic;
+	}
+
+	/**
+	 * @return a stream positioned after the header of a snapshot of rows 0 to n
+	 */
+	DataOutputStream create(Path path, int n) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+		out.writeLong(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(arithmetic.maxBitLength());
+		out.writeInt(n);
+		return out;
+	}
+
+	void write(DataOutputStream out, V value) throws IOException {
+		byte[] magnitude;
+		if (Binomials.isPrimitive(arithmetic))
+			magnitude = ByteBuffer.allocate(8).putLong(value.longValue()).array();
+		else if (arithmetic instanceof BigIntegerArithmetic)
+			magnitude = ((BigInteger) value).toByteArray();
+		else if (arithmetic instanceof LimbsArithmetic)
+			magnitude = ((Limbs) value).toBigInteger().toByteArray();
+		else if (arithmetic instanceof AdaptiveArithmetic)
+			magnitude = AdaptiveArithmetic.toBigInteger(value).toByteArray();
+		else
+			magnitude = new BigInteger(arithmetic.toString(value, 16), 16).toByteArray();
+		out.writeInt(magnitude.length);
+		out.write(magnitude);
+	}
+
+	/**
+	 * @return the snapshot at path, positioned at n, the last row, in its header
+	 */
+	ByteBuffer read(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshot too large: "+path);
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) < 0)
+					break;
+		}
+		buffer.flip();
+		if (buffer.remaining() < 20 || buffer.getLong() != MAGIC || buffer.getInt() != VERSION)
+			throw new IOException("Not a binom snapshot: "+path);
+		int bits = buffer.getInt();
+		if (bits != arithmetic.maxBitLength())
+			throw new IOException("Snapshot of "+bits+" bit values, "+path+", does not fit "+arithmetic.maxBitLength()+" bits.");
+		return buffer;
+	}
+
+	@SuppressWarnings("unchecked")
+	V read(ByteBuffer buffer) {
+		byte[] magnitude = new byte[buffer.getInt()];
+		buffer.get(magnitude);
+		if (arithmetic instanceof LongArithmetic)
+			return (V) Long.valueOf(ByteBuffer.wrap(magnitude).getLong());
+		if (arithmetic instanceof IntegerArithmetic)
+			return (V) Integer.valueOf((int) ByteBuffer.wrap(magnitude).getLong());
+		if (arithmetic instanceof ByteArithmetic)
+			return (V) Byte.valueOf((byte) ByteBuffer.wrap(magnitude).getLong());
+		BigInteger value = new BigInteger(1, magnitude);
+		if (arithmetic instanceof BigIntegerArithmetic)
+			return (V) value;
+		if (arithmetic instanceof LimbsArithmetic)
+			return (V) Limbs.valueOf(value, ((LimbsArithmetic) arithmetic).width());
+		if (arithmetic instanceof AdaptiveArithmetic)
+			return (V) AdaptiveArithmetic.valueOf(value);
+		V v = arithmetic.zero();
+		for (int i = value.getLowestSetBit(); i >= 0 && i < value.bitLength(); i++)
+			if (value.testBit(i))
+				v = arithmetic.setBit(v, i);
+		return v;
+	}
+
+	/**
+	 * @return the next value of a primitive arithmetic, as a long
+	 */
+	long readLong(ByteBuffer buffer) {
+		buffer.getInt();
+		return buffer.getLong();
+	}
+}
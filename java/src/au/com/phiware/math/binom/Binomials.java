@@ -1,9 +1,133 @@
 package au.com.phiware.math.binom;
 
+import java.math.BigInteger;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import au.com.phiware.math.ring.BitArithmetic;
+import au.com.phiware.math.ring.ByteArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+import au.com.phiware.math.ring.Primes;
 
 public final class Binomials {
+	/**
+	 * Name of the system property that selects the {@link BinomFactory}
+	 * implementation: <code>graph</code> (the default) for {@link BinomGraph}
+	 * or <code>array</code> for {@link BinomArray}.
+	 */
+	public static final String FACTORY_PROPERTY = "au.com.phiware.math.binom.factory";
+
+	/**
+	 * Rows of at least this many columns are summed in parallel, unless
+	 * their values are primitive.
+	 */
+	static final int PARALLEL_COLUMNS = 256;
+
+	/**
+	 * @return true if the values of arithmetic are held in a primitive
+	 */
+	static boolean isPrimitive(BitArithmetic<?> arithmetic) {
+		return arithmetic instanceof LongArithmetic
+		    || arithmetic instanceof IntegerArithmetic
+		    || arithmetic instanceof ByteArithmetic;
+	}
+
+	private static volatile BinomMetrics metrics;
+
+	/**
+	 * @return the metrics installed, or null
+	 */
+	public static BinomMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Install metrics, or none if null, for every triangle and conversion of
+	 * this process.
+	 * @return the metrics installed before, or null
+	 */
+	public static synchronized BinomMetrics setMetrics(BinomMetrics metrics) {
+		BinomMetrics previous = Binomials.metrics;
+		Binomials.metrics = metrics;
+		return previous;
+	}
+
+	private static final ConcurrentMap<BitArithmetic<?>, BinomFactory<?>> shared = new ConcurrentHashMap<BitArithmetic<?>, BinomFactory<?>>();
+
+	/**
+	 * @return the one factory of arithmetic in this process, created by
+	 * {@link #defaultBinomFactory(BitArithmetic)} when first requested. The
+	 * triangle does not depend on length, so every length shares its rows
+	 * and it holds no more than the longest length needs.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V extends Number> BinomFactory<V> sharedBinomFactory(BitArithmetic<V> arithmetic) {
+		BinomFactory<V> factory = (BinomFactory<V>) shared.get(arithmetic);
+		if (factory == null) {
+			factory = defaultBinomFactory(arithmetic);
+			BinomFactory<V> registered = (BinomFactory<V>) shared.putIfAbsent(arithmetic, factory);
+			if (registered != null)
+				factory = registered;
+		}
+		return factory;
+	}
+
 	public static <V extends Number> BinomFactory<V> defaultBinomFactory(BitArithmetic<V> arithmetic) {
-		return new BinomGraph<V>(arithmetic);
+		String factory = System.getProperty(FACTORY_PROPERTY, "graph");
+		if ("array".equals(factory))
+			return new BinomArray<V>(arithmetic);
+		if ("graph".equals(factory))
+			return new BinomGraph<V>(arithmetic, BinomCache.<Long, Object>forPolicy(System.getProperty(BinomCache.POLICY_PROPERTY, "soft")));
+		throw new IllegalArgumentException("Unknown "+FACTORY_PROPERTY+", "+factory+".");
+	}
+
+	/**
+	 * @return n choose k, computed directly rather than by building the
+	 * triangle: the exponent of each prime p &lt;= n is counted by Legendre's
+	 * formula, as the exponent of p in n! less those in k! and (n - k)!, and
+	 * the prime powers, each at most n by Kummer's theorem, are multiplied
+	 * together in a product tree so that the large multiplications are
+	 * between numbers of similar size.
+	 */
+	public static BigInteger choose(int n, int k) {
+		if (n < 0 || k < 0 || k > n)
+			throw new IllegalArgumentException(MessageFormat.format("Undefined value for n = {0} and k = {1}.", n, k));
+		k = Math.min(k, n - k);
+		if (k == 0)
+			return BigInteger.ONE;
+
+		List<BigInteger> powers = new ArrayList<BigInteger>();
+		long product = 1;
+		for (int p : Primes.sieve(n)) {
+			int e = 0;
+			if (p > n - k)
+				e = 1;
+			else if (p > n / 2)
+				continue;
+			else
+				for (long q = p; q <= n; q *= p)
+					e += n / q - k / q - (n - k) / q;
+			long power = 1;
+			while (e-- > 0)
+				power *= p;
+			if (product > Long.MAX_VALUE / power) {
+				powers.add(BigInteger.valueOf(product));
+				product = 1;
+			}
+			product *= power;
+		}
+		powers.add(BigInteger.valueOf(product));
+		return product(powers, 0, powers.size());
+	}
+
+	private static BigInteger product(List<BigInteger> factors, int from, int to) {
+		if (to - from == 1)
+			return factors.get(from);
+		int mid = (from + to) >>> 1;
+		return product(factors, from, mid).multiply(product(factors, mid, to));
 	}
 }
@@ -0,0 +1,32 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for each eviction by a {@link BinomCache}, or each
+ * discovery that the garbage collector cleared a value of a soft cache.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@Name("au.com.phiware.math.CacheEviction")
+@Label("Cache Eviction")
+@Category({"Phimath", "Cache"})
+@Description("Values evicted from a cache of rows or nodes")
+final class CacheEvictionEvent extends Event {
+	@Label("Policy")
+	Class<?> policy;
+
+	@Label("Evicted")
+	long count;
+
+	@Label("Size")
+	int size;
+}
@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for each build of a part of a triangle: the nodes
+ * that a value of {@link BinomGraph} needs, or whole rows, by prewarm or by
+ * {@link BinomArray}.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+@Name("au.com.phiware.math.TriangleBuild")
+@Label("Triangle Build")
+@Category({"Phimath", "Triangle"})
+@Description("Nodes or rows of Pascal's triangle summed")
+final class TriangleBuildEvent extends Event {
+	@Label("Row")
+	int n;
+
+	@Label("Column")
+	@Description("The column of the node built, or -1 for whole rows")
+	int k;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Arithmetic")
+	Class<?> arithmetic;
+}
@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+/**
+ * A mutable value of a {@link BitArithmetic}, from
+ * {@link BitArithmetic#newAccumulator()}. Its operations have the meaning of
+ * those of its arithmetic but modify the accumulator in place, and return it,
+ * rather than return a new value. In the accumulators of the primitive
+ * arithmetics and of {@link Limbs}, only {@link #value()} allocates; that of
+ * {@link java.math.BigInteger} allocates as BigInteger does, in every
+ * operation but {@link #testBit(int)}, {@link #setBit(int)} and
+ * {@link #setBits(int, int)}, and that of {@link AdaptiveArithmetic} does so
+ * only when its value, or operand, does not fit in a long. An accumulator is
+ * not safe to share between threads.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public interface Accumulator<V extends Number> {
+	public Accumulator<V> set(V a);
+	/**
+	 * @return a new value equal to this accumulator
+	 */
+	public V value();
+
+	public boolean testBit(int n);
+	public Accumulator<V> setBit(int n);
+	/**
+	 * Set bits from (inclusive) to to (exclusive).
+	 */
+	public Accumulator<V> setBits(int from, int to);
+	/**
+	 * Clear bits from (inclusive) to to (exclusive).
+	 */
+	public Accumulator<V> clearBits(int from, int to);
+
+	public Accumulator<V> add(V a);
+	public Accumulator<V> subtract(V a);
+	/**
+	 * Add a, as {@link #add(Number)} would its boxed value.
+	 */
+	public Accumulator<V> add(long a);
+	/**
+	 * Subtract a, as {@link #subtract(Number)} would its boxed value.
+	 */
+	public Accumulator<V> subtract(long a);
+	public Accumulator<V> or(V a);
+	public Accumulator<V> and(V a);
+	public Accumulator<V> nand(V a);
+	public Accumulator<V> xor(V a);
+	public Accumulator<V> shiftLeft(int n);
+
+	public int highestOneBit();
+	public int compareTo(V a);
+	/**
+	 * Compare to a, as {@link #compareTo(Number)} would to its boxed value.
+	 */
+	public int compareTo(long a);
+}
@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+
+/**
+ * The {@link Accumulator} of {@link AdaptiveArithmetic}, which holds its value
+ * in a <code>long</code> while it fits and in a {@link BigIntegerAccumulator}
+ * once it does not, with the same overflow checks as its arithmetic.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+final class AdaptiveAccumulator implements Accumulator<Number> {
+	private final BigIntegerAccumulator big = new BigIntegerAccumulator();
+	private boolean small = true;
+	private long value;
+
+	private static boolean small(Number a) {
+		return !(a instanceof BigInteger);
+	}
+
+	private BigIntegerAccumulator promote() {
+		if (small) {
+			big.set(BigInteger.valueOf(value));
+			small = false;
+		}
+		return big;
+	}
+
+	private Accumulator<Number> demote() {
+		if (!small && big.flush().bitLength() < Long.SIZE) {
+			value = big.value.longValue();
+			small = true;
+		}
+		return this;
+	}
+
+	@Override
+	public Accumulator<Number> set(Number a) {
+		if (small = small(a))
+			value = a.longValue();
+		else
+			big.set((BigInteger) a);
+		return demote();
+	}
+
+	@Override
+	public Number value() {
+		if (small)
+			return value;
+		return AdaptiveArithmetic.valueOf(big.flush());
+	}
+
+	@Override
+	public boolean testBit(int n) {
+		if (small)
+			return (value >> Math.min(n, Long.SIZE - 1) & 1) != 0;
+		return big.testBit(n);
+	}
+
+	@Override
+	public Accumulator<Number> setBit(int n) {
+		if (small && (n < Long.SIZE - 1 || value < 0))
+			value |= 1L << Math.min(n, Long.SIZE - 1);
+		else
+			promote().setBit(n);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Number> setBits(int from, int to) {
+		if (small && (to < Long.SIZE || value < 0))
+			value |= PrimitiveAccumulator.bits(from, to);
+		else
+			promote().setBits(from, to);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Number> clearBits(int from, int to) {
+		if (small && (to < Long.SIZE || value >= 0))
+			value &= ~PrimitiveAccumulator.bits(from, to);
+		else
+			promote().clearBits(from, to);
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> add(Number a) {
+		if (small(a))
+			return add(a.longValue());
+		promote().add((BigInteger) a);
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> add(long y) {
+		if (small) {
+			long x = value, r = x + y;
+			if (((x ^ r) & (y ^ r)) >= 0) {
+				value = r;
+				return this;
+			}
+		}
+		promote().add(BigInteger.valueOf(y));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> subtract(Number a) {
+		if (small(a))
+			return subtract(a.longValue());
+		promote().subtract((BigInteger) a);
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> subtract(long y) {
+		if (small) {
+			long x = value, r = x - y;
+			if (((x ^ y) & (x ^ r)) >= 0) {
+				value = r;
+				return this;
+			}
+		}
+		promote().subtract(BigInteger.valueOf(y));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> or(Number a) {
+		if (small && small(a))
+			value |= a.longValue();
+		else
+			promote().or(AdaptiveArithmetic.toBigInteger(a));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> and(Number a) {
+		if (small && small(a))
+			value &= a.longValue();
+		else
+			promote().and(AdaptiveArithmetic.toBigInteger(a));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> nand(Number a) {
+		if (small && small(a))
+			value &= ~a.longValue();
+		else
+			promote().nand(AdaptiveArithmetic.toBigInteger(a));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> xor(Number a) {
+		if (small && small(a))
+			value ^= a.longValue();
+		else
+			promote().xor(AdaptiveArithmetic.toBigInteger(a));
+		return demote();
+	}
+
+	@Override
+	public Accumulator<Number> shiftLeft(int n) {
+		if (small && n >= 0 && (value == 0 || n < Long.numberOfLeadingZeros(value < 0 ? ~value : value)))
+			value <<= n;
+		else
+			promote().shiftLeft(n);
+		return this;
+	}
+
+	@Override
+	public int highestOneBit() {
+		if (small)
+			return Long.SIZE - 1 - Long.numberOfLeadingZeros(value < 0 ? ~value : value);
+		return big.highestOneBit();
+	}
+
+	/**
+	 * A BigInteger that does not fit in a long is beyond every long, so only
+	 * its sign need be compared with one.
+	 */
+	@Override
+	public int compareTo(long a) {
+		demote();
+		if (small)
+			return Long.compare(value, a);
+		return big.value.signum();
+	}
+
+	@Override
+	public int compareTo(Number a) {
+		demote();
+		if (!small(a) && ((BigInteger) a).bitLength() < Long.SIZE)
+			a = a.longValue();
+		if (small && small(a))
+			return Long.compare(value, a.longValue());
+		if (small)
+			return -((BigInteger) a).signum();
+		if (small(a))
+			return big.value.signum();
+		return big.value.compareTo((BigInteger) a);
+	}
+}
@@ -0,0 +1,329 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The arithmetic of integers of any length, as {@link BigIntegerArithmetic},
+ * whose values are held in a {@link Long} while they fit and in a
+ * {@link BigInteger} only once they do not. An operation on two Longs is
+ * checked for overflow, as by {@link Math#addExact(long, long)} but without
+ * the exception, and is repeated with BigIntegers only if it overflows. Every
+ * result that fits in a long is a Long, so that two values are equal exactly
+ * when their Numbers are.
+ *
+ * This is the arithmetic of {@link au.com.phiware.math.bankers.AdaptiveBankers},
+ * for lengths that are too long for a long but whose rows are mostly binomials
+ * that are not. It is never chosen by {@link ArithmeticFactory}, whose
+ * arithmetic of Number is {@link BigIntegerArithmetic}; a
+ * <code>Bankers&lt;Number&gt;</code> opts in by being given a factory of it.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class AdaptiveArithmetic implements BitArithmetic<Number> {
+
+	private static final AdaptiveArithmetic a = new AdaptiveArithmetic();
+	private AdaptiveArithmetic() {}
+	public static AdaptiveArithmetic getInstance() {
+		return a;
+	}
+
+	/**
+	 * @return a as a Long, if it fits, otherwise a
+	 */
+	public static Number valueOf(BigInteger a) {
+		if (a.bitLength() < Long.SIZE)
+			return a.longValue();
+		return a;
+	}
+
+	/**
+	 * @return a as a BigInteger
+	 */
+	public static BigInteger toBigInteger(Number a) {
+		if (a instanceof BigInteger)
+			return (BigInteger) a;
+		return BigInteger.valueOf(a.longValue());
+	}
+
+	/**
+	 * Any Number but a BigInteger is taken to be a long.
+	 */
+	private static boolean small(Number a) {
+		return !(a instanceof BigInteger);
+	}
+
+	private static boolean small(Number a, Number b) {
+		return small(a) && small(b);
+	}
+
+	@Override
+	public int maxBitLength() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public Number one() {
+		return 1L;
+	}
+
+	@Override
+	public Number zero() {
+		return 0L;
+	}
+
+	@Override
+	public Set<Number> factors(Number a) {
+		Set<Number> factors = new LinkedHashSet<Number>();
+		for (BigInteger d : Primes.divisors(Primes.factor(toBigInteger(a))))
+			factors.add(valueOf(d));
+		return factors;
+	}
+
+	@Override
+	public Number[] primeFactorization(Number a) {
+		BigInteger[] factors = Primes.factor(toBigInteger(a));
+		Number[] numbers = new Number[factors.length];
+		for (int i = 0; i < factors.length; i++)
+			numbers[i] = valueOf(factors[i]);
+		return numbers;
+	}
+
+	@Override
+	public Number gcd(Number a, Number b) {
+		if (small(a, b) && a.longValue() != Long.MIN_VALUE && b.longValue() != Long.MIN_VALUE) {
+			long x = Math.abs(a.longValue()), y = Math.abs(b.longValue()), r;
+			while (y != 0) {
+				r = x % y;
+				x = y;
+				y = r;
+			}
+			return x;
+		}
+		return valueOf(toBigInteger(a).gcd(toBigInteger(b)));
+	}
+
+	@Override
+	public boolean congruent(Number a, Number b, Number mod) {
+		return signum(mod(subtract(a, b), mod)) == 0;
+	}
+
+	@Override
+	public Number mod(Number a, Number b) {
+		if (small(a, b) && b.longValue() > 0) {
+			long r = a.longValue() % b.longValue();
+			return r >= 0 ? r : (r + b.longValue());
+		}
+		return valueOf(toBigInteger(a).mod(toBigInteger(b)));
+	}
+
+	@Override
+	public Number add(Number a, Number b) {
+		if (small(a, b)) {
+			long x = a.longValue(), y = b.longValue(), r = x + y;
+			if (((x ^ r) & (y ^ r)) >= 0)
+				return r;
+		}
+		return valueOf(toBigInteger(a).add(toBigInteger(b)));
+	}
+
+	@Override
+	public Number negate(Number a) {
+		if (small(a) && a.longValue() != Long.MIN_VALUE)
+			return -a.longValue();
+		return valueOf(toBigInteger(a).negate());
+	}
+
+	@Override
+	public Number subtract(Number a, Number b) {
+		if (small(a, b)) {
+			long x = a.longValue(), y = b.longValue(), r = x - y;
+			if (((x ^ y) & (x ^ r)) >= 0)
+				return r;
+		}
+		return valueOf(toBigInteger(a).subtract(toBigInteger(b)));
+	}
+
+	@Override
+	public Number multiply(Number a, Number b) {
+		if (small(a, b)) {
+			long x = a.longValue(), y = b.longValue(), r = x * y;
+			if (((Math.abs(x) | Math.abs(y)) >>> 31 == 0)
+			 || ((x == 0 || (r / x == y && !(x == -1 && y == Long.MIN_VALUE)))))
+				return r;
+		}
+		return valueOf(toBigInteger(a).multiply(toBigInteger(b)));
+	}
+
+	@Override
+	public Number pow(Number a, Number b) {
+		return valueOf(toBigInteger(a).pow(b.intValue()));
+	}
+
+	@Override
+	public Number max(Number a, Number b) {
+		return compare(a, b) >= 0 ? a : b;
+	}
+
+	@Override
+	public Number min(Number a, Number b) {
+		return compare(a, b) <= 0 ? a : b;
+	}
+
+	@Override
+	public boolean testBit(Number a, int n) {
+		if (small(a))
+			return (a.longValue() >> Math.min(n, Long.SIZE - 1) & 1) != 0;
+		return ((BigInteger) a).testBit(n);
+	}
+
+	@Override
+	public Number setBit(Number a, int n) {
+		if (small(a) && (n < Long.SIZE - 1 || a.longValue() < 0))
+			return a.longValue() | 1L << Math.min(n, Long.SIZE - 1);
+		return valueOf(toBigInteger(a).setBit(n));
+	}
+
+	@Override
+	public Number clearBit(Number a, int n) {
+		if (small(a) && (n < Long.SIZE - 1 || a.longValue() >= 0))
+			return a.longValue() & ~(1L << Math.min(n, Long.SIZE - 1));
+		return valueOf(toBigInteger(a).clearBit(n));
+	}
+
+	@Override
+	public Number flipBit(Number a, int n) {
+		if (testBit(a, n))
+			return clearBit(a, n);
+		else
+			return setBit(a, n);
+	}
+
+	@Override
+	public int signum(Number a) {
+		if (small(a))
+			return Long.signum(a.longValue());
+		return ((BigInteger) a).signum();
+	}
+
+	/**
+	 * @return a with its bits reversed within the fewest whole longs that
+	 * hold it, in two's complement, as {@link Long#reverse(long)} for a Long
+	 */
+	@Override
+	public Number reverse(Number a) {
+		if (small(a))
+			return Long.reverse(a.longValue());
+		BigInteger big = (BigInteger) a;
+		int words = big.bitLength() / Long.SIZE + 1;
+		ByteBuffer reverse = ByteBuffer.allocate(words * 8);
+		for (int i = 0; i < words; i++)
+			reverse.putLong(Long.reverse(big.shiftRight(i * Long.SIZE).longValue()));
+		return valueOf(new BigInteger(reverse.array()));
+	}
+
+	@Override
+	public Number or(Number a, Number b) {
+		if (small(a, b))
+			return a.longValue() | b.longValue();
+		return valueOf(toBigInteger(a).or(toBigInteger(b)));
+	}
+
+	@Override
+	public Number and(Number a, Number b) {
+		if (small(a, b))
+			return a.longValue() & b.longValue();
+		return valueOf(toBigInteger(a).and(toBigInteger(b)));
+	}
+
+	@Override
+	public Number nand(Number a, Number b) {
+		if (small(a, b))
+			return a.longValue() & ~b.longValue();
+		return valueOf(toBigInteger(a).andNot(toBigInteger(b)));
+	}
+
+	@Override
+	public Number xor(Number a, Number b) {
+		if (small(a, b))
+			return a.longValue() ^ b.longValue();
+		return valueOf(toBigInteger(a).xor(toBigInteger(b)));
+	}
+
+	@Override
+	public Number not(Number a) {
+		if (small(a))
+			return ~a.longValue();
+		return valueOf(((BigInteger) a).not());
+	}
+
+	@Override
+	public Number shiftLeft(Number a, int n) {
+		if (small(a) && n >= 0) {
+			long x = a.longValue();
+			if (x == 0 || n < Long.numberOfLeadingZeros(x < 0 ? ~x : x))
+				return x << n;
+		}
+		return valueOf(toBigInteger(a).shiftLeft(n));
+	}
+
+	@Override
+	public Number shiftRight(Number a, int n) {
+		if (small(a) && n >= 0)
+			return a.longValue() >> Math.min(n, Long.SIZE - 1);
+		return valueOf(toBigInteger(a).shiftRight(n));
+	}
+
+	@Override
+	public int bitCount(Number a) {
+		if (small(a)) {
+			long x = a.longValue();
+			return Long.bitCount(x < 0 ? ~x : x);
+		}
+		return ((BigInteger) a).bitCount();
+	}
+
+	@Override
+	public int highestOneBit(Number a) {
+		if (small(a)) {
+			long x = a.longValue();
+			return Long.SIZE - 1 - Long.numberOfLeadingZeros(x < 0 ? ~x : x);
+		}
+		return ((BigInteger) a).bitLength() - 1;
+	}
+
+	@Override
+	public int lowestOneBit(Number a) {
+		if (small(a)) {
+			if (a.longValue() == 0)
+				return -1;
+			return Long.numberOfTrailingZeros(a.longValue());
+		}
+		return ((BigInteger) a).getLowestSetBit();
+	}
+
+	@Override
+	public String toString(Number a, int radix) {
+		if (small(a))
+			return Long.toString(a.longValue(), radix);
+		return ((BigInteger) a).toString(radix);
+	}
+
+	@Override
+	public int compare(Number a, Number b) {
+		if (small(a, b))
+			return Long.compare(a.longValue(), b.longValue());
+		return toBigInteger(a).compareTo(toBigInteger(b));
+	}
+
+	@Override
+	public Accumulator<Number> newAccumulator() {
+		return new AdaptiveAccumulator();
+	}
+}
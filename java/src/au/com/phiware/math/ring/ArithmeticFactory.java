@@ -39,11 +39,27 @@ public class ArithmeticFactory {
 		if (type.isAssignableFrom(Byte.class))
 			return (BitArithmetic<V>) ByteArithmetic.getInstance();
 
+		if (type.isAssignableFrom(Limbs.class))
+			return (BitArithmetic<V>) LimbsArithmetic.getInstance(LimbsArithmetic.MAX_LENGTH);
+
 		throw new ClassNotFoundException();
 	}
 
+	/**
+	 * As {@link #getBitArithmetic(Class)}, but the arithmetic of {@link Limbs}
+	 * is the narrowest that holds length bits.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V extends Number> BitArithmetic<V> getBitArithmetic(Class<V> type, int length) throws ClassNotFoundException {
+		if (Limbs.class.equals(type))
+			return (BitArithmetic<V>) LimbsArithmetic.getInstance(length);
+		return getBitArithmetic(type);
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <V extends Number> BitArithmetic<V> getBitArithmeticForNumber(V n) throws ClassNotFoundException {
+		if (n instanceof Limbs)
+			return (BitArithmetic<V>) LimbsArithmetic.getInstance(((Limbs) n).bitLength());
 		return (BitArithmetic<V>) getBitArithmetic(n.getClass());
 	}
 }
@@ -0,0 +1,165 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The {@link Accumulator} of {@link BigIntegerArithmetic}. BigInteger has no
+ * mutable form in its public API, so the arithmetic of this accumulator
+ * allocates as BigInteger's does; but the bits set by {@link #setBit(int)}
+ * and {@link #setBits(int, int)} are gathered in place, and are only or'd
+ * into its value, once, when another operation needs it.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+final class BigIntegerAccumulator implements Accumulator<BigInteger> {
+	BigInteger value = BigInteger.ZERO;
+	private long[] bits = new long[1];
+	private boolean pending;
+
+	/**
+	 * @return value, with the pending bits set
+	 */
+	BigInteger flush() {
+		if (pending) {
+			value = value.or(valueOf(bits));
+			Arrays.fill(bits, 0);
+			pending = false;
+		}
+		return value;
+	}
+
+	/**
+	 * @return the non-negative integer of the little-endian words
+	 */
+	static BigInteger valueOf(long[] words) {
+		byte[] magnitude = new byte[words.length * 8];
+		for (int i = 0; i < words.length; i++)
+			for (int j = 0; j < 8; j++)
+				magnitude[magnitude.length - 1 - i * 8 - j] = (byte) (words[i] >>> (j * 8));
+		return new BigInteger(1, magnitude);
+	}
+
+	@Override
+	public Accumulator<BigInteger> set(BigInteger a) {
+		value = a;
+		if (pending) {
+			Arrays.fill(bits, 0);
+			pending = false;
+		}
+		return this;
+	}
+
+	@Override
+	public BigInteger value() {
+		return flush();
+	}
+
+	@Override
+	public boolean testBit(int n) {
+		return value.testBit(n) || (n >>> 6 < bits.length && (bits[n >>> 6] & 1L << n) != 0);
+	}
+
+	@Override
+	public Accumulator<BigInteger> setBit(int n) {
+		if (n >>> 6 >= bits.length)
+			bits = Arrays.copyOf(bits, Math.max(bits.length * 2, (n >>> 6) + 1));
+		bits[n >>> 6] |= 1L << n;
+		pending = true;
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> setBits(int from, int to) {
+		for (; from < to && (from & 63) != 0; from++)
+			setBit(from);
+		for (; from + 64 <= to; from += 64) {
+			setBit(from);
+			bits[from >>> 6] = -1L;
+		}
+		for (; from < to; from++)
+			setBit(from);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> clearBits(int from, int to) {
+		if (from < to)
+			value = flush().andNot(BigInteger.ONE.shiftLeft(to - from).subtract(BigInteger.ONE).shiftLeft(from));
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> add(BigInteger a) {
+		value = flush().add(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> subtract(BigInteger a) {
+		value = flush().subtract(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> add(long a) {
+		return add(BigInteger.valueOf(a));
+	}
+
+	@Override
+	public Accumulator<BigInteger> subtract(long a) {
+		return subtract(BigInteger.valueOf(a));
+	}
+
+	@Override
+	public Accumulator<BigInteger> or(BigInteger a) {
+		value = flush().or(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> and(BigInteger a) {
+		value = flush().and(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> nand(BigInteger a) {
+		value = flush().andNot(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> xor(BigInteger a) {
+		value = flush().xor(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<BigInteger> shiftLeft(int n) {
+		value = flush().shiftLeft(n);
+		return this;
+	}
+
+	@Override
+	public int highestOneBit() {
+		return flush().bitLength() - 1;
+	}
+
+	@Override
+	public int compareTo(BigInteger a) {
+		return flush().compareTo(a);
+	}
+
+	@Override
+	public int compareTo(long a) {
+		BigInteger v = flush();
+		if (v.bitLength() < Long.SIZE)
+			return Long.compare(v.longValue(), a);
+		return v.signum();
+	}
+}
@@ -5,6 +5,7 @@ package au.com.phiware.math.ring;
 
 import java.math.BigInteger;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Corin Lawson <me@corinlawson.com.au>
@@ -30,14 +31,12 @@ public class BigIntegerArithmetic implements BitArithmetic<BigInteger> {
 
 	@Override
 	public Set<BigInteger> factors(BigInteger a) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException();
+		return new TreeSet<BigInteger>(Primes.divisors(Primes.factor(a)));
 	}
 
 	@Override
 	public BigInteger[] primeFactorization(BigInteger a) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException();
+		return Primes.factor(a);
 	}
 
 	@Override
@@ -130,7 +129,7 @@ public class BigIntegerArithmetic implements BitArithmetic<BigInteger> {
 
 	@Override
 	public BigInteger and(BigInteger a, BigInteger b) {
-		return a.add(b);
+		return a.and(b);
 	}
 
 	@Override
@@ -188,4 +187,9 @@ public class BigIntegerArithmetic implements BitArithmetic<BigInteger> {
 		// TODO Auto-generated method stub
 		throw new UnsupportedOperationException();
 	}
+
+	@Override
+	public Accumulator<BigInteger> newAccumulator() {
+		return new BigIntegerAccumulator();
+	}
 }
@@ -29,4 +29,10 @@ public interface BitArithmetic<V extends Number> extends IntegralArithmetic<V> {
 	public int lowestOneBit(V a);
 	
 	public String toString(V a, int radix);
+
+	/**
+	 * @return a new accumulator, equal to zero, whose operations modify it in
+	 * place
+	 */
+	public Accumulator<V> newAccumulator();
 }
@@ -4,6 +4,7 @@
 package au.com.phiware.math.ring;
 
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Corin Lawson <me@corinlawson.com.au>
@@ -29,14 +30,19 @@ public class ByteArithmetic implements BitArithmetic<Byte> {
 
 	@Override
 	public Set<Byte> factors(Byte a) {
-		// TODO Auto-generated method stub
-		return null;
+		Set<Byte> factors = new TreeSet<Byte>();
+		for (long d : Primes.divisors(Primes.factor(a)))
+			factors.add((byte) d);
+		return factors;
 	}
 
 	@Override
 	public Byte[] primeFactorization(Byte a) {
-		// TODO Auto-generated method stub
-		return null;
+		long[] factors = Primes.factor(a);
+		Byte[] boxed = new Byte[factors.length];
+		for (int i = 0; i < factors.length; i++)
+			boxed[i] = (byte) factors[i];
+		return boxed;
 	}
 
 	@Override
@@ -195,4 +201,13 @@ public class ByteArithmetic implements BitArithmetic<Byte> {
 	public int compare(Byte a, Byte b) {
 		return a - b;
 	}
+
+	@Override
+	public Accumulator<Byte> newAccumulator() {
+		return new PrimitiveAccumulator<Byte>(Byte.SIZE) {
+			public Byte value() {
+				return (byte) value;
+			}
+		};
+	}
 }
@@ -4,6 +4,7 @@
 package au.com.phiware.math.ring;
 
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Corin Lawson <me@corinlawson.com.au>
@@ -29,14 +30,19 @@ public class IntegerArithmetic implements BitArithmetic<Integer> {
 
 	@Override
 	public Set<Integer> factors(Integer a) {
-		// TODO Auto-generated method stub
-		return null;
+		Set<Integer> factors = new TreeSet<Integer>();
+		for (long d : Primes.divisors(Primes.factor(a)))
+			factors.add((int) d);
+		return factors;
 	}
 
 	@Override
 	public Integer[] primeFactorization(Integer a) {
-		// TODO Auto-generated method stub
-		return null;
+		long[] factors = Primes.factor(a);
+		Integer[] boxed = new Integer[factors.length];
+		for (int i = 0; i < factors.length; i++)
+			boxed[i] = (int) factors[i];
+		return boxed;
 	}
 
 	@Override
@@ -197,4 +203,13 @@ public class IntegerArithmetic implements BitArithmetic<Integer> {
 	public int compare(Integer a, Integer b) {
 		return a - b;
 	}
+
+	@Override
+	public Accumulator<Integer> newAccumulator() {
+		return new PrimitiveAccumulator<Integer>(Integer.SIZE) {
+			public Integer value() {
+				return (int) value;
+			}
+		};
+	}
 }
@@ -12,7 +12,16 @@ import java.util.Set;
 public interface IntegralArithmetic<V extends Number> extends RingArithmetic<V> {
 	public V one();
 
+	/**
+	 * @return every positive divisor of a, including one and the magnitude of a
+	 * @throws IllegalArgumentException if a is zero
+	 */
 	public Set<V> factors(V a);
+	/**
+	 * @return the prime factors of the magnitude of a, with multiplicity, in
+	 * ascending order; empty for one
+	 * @throws IllegalArgumentException if a is zero
+	 */
 	public V[] primeFactorization(V a);
 	public V gcd(V a, V b);
 
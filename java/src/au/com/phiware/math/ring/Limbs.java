@@ -0,0 +1,301 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * An unsigned integer of a fixed number of 64 bit limbs, least significant
+ * limb first. Unlike {@link BigInteger}, the methods of Limbs that take or
+ * produce a Limbs modify it in place (and return it), so that a loop can set
+ * bits or accumulate a sum without allocating; all arithmetic is modulo
+ * 2<sup>64 &times; {@link #width()}</sup>. An operand of a different width
+ * is zero extended or truncated.
+ *
+ * The values returned by {@link LimbsArithmetic} may be shared, so
+ * {@link #copy()} one before modifying it.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public final class Limbs extends Number implements Comparable<Limbs> {
+	private static final long serialVersionUID = 1L;
+	final long[] limbs;
+
+	/**
+	 * @param width the number of limbs
+	 */
+	public Limbs(int width) {
+		limbs = new long[width];
+	}
+
+	Limbs(long[] limbs) {
+		this.limbs = limbs;
+	}
+
+	public static Limbs valueOf(long value, int width) {
+		Limbs a = new Limbs(width);
+		a.limbs[0] = value;
+		return a;
+	}
+
+	public static Limbs valueOf(BigInteger value, int width) {
+		Limbs a = new Limbs(width);
+		for (int i = 0; i < width; i++)
+			a.limbs[i] = value.shiftRight(i * Long.SIZE).longValue();
+		return a;
+	}
+
+	/**
+	 * @return the number of limbs
+	 */
+	public int width() {
+		return limbs.length;
+	}
+
+	public int bitLength() {
+		return limbs.length * Long.SIZE;
+	}
+
+	public Limbs copy() {
+		return new Limbs(limbs.clone());
+	}
+
+	private long limb(int i) {
+		return i < limbs.length ? limbs[i] : 0;
+	}
+
+	public Limbs set(Limbs a) {
+		int n = Math.min(limbs.length, a.limbs.length);
+		System.arraycopy(a.limbs, 0, limbs, 0, n);
+		Arrays.fill(limbs, n, limbs.length, 0);
+		return this;
+	}
+
+	public boolean isZero() {
+		for (long l : limbs)
+			if (l != 0)
+				return false;
+		return true;
+	}
+
+	public boolean testBit(int n) {
+		return (limb(n >>> 6) & (1L << n)) != 0;
+	}
+
+	public Limbs setBit(int n) {
+		limbs[n >>> 6] |= 1L << n;
+		return this;
+	}
+
+	public Limbs clearBit(int n) {
+		limbs[n >>> 6] &= ~(1L << n);
+		return this;
+	}
+
+	public Limbs flipBit(int n) {
+		limbs[n >>> 6] ^= 1L << n;
+		return this;
+	}
+
+	/**
+	 * Set bits from (inclusive) to to (exclusive), as far as the width allows.
+	 */
+	public Limbs setBits(int from, int to) {
+		to = Math.min(to, bitLength());
+		for (; from < to && (from & 63) != 0; from++)
+			setBit(from);
+		for (; from + 64 <= to; from += 64)
+			limbs[from >>> 6] = -1L;
+		for (; from < to; from++)
+			setBit(from);
+		return this;
+	}
+
+	/**
+	 * Clear bits from (inclusive) to to (exclusive), as far as the width allows.
+	 */
+	public Limbs clearBits(int from, int to) {
+		to = Math.min(to, bitLength());
+		for (; from < to && (from & 63) != 0; from++)
+			clearBit(from);
+		for (; from + 64 <= to; from += 64)
+			limbs[from >>> 6] = 0;
+		for (; from < to; from++)
+			clearBit(from);
+		return this;
+	}
+
+	public Limbs add(Limbs a) {
+		long carry = 0;
+		for (int i = 0; i < limbs.length && (carry != 0 || i < a.limbs.length); i++) {
+			long x = limbs[i], s = x + a.limb(i) + carry;
+			carry = (carry == 0 ? Long.compareUnsigned(s, x) < 0 : Long.compareUnsigned(s, x) <= 0) ? 1 : 0;
+			limbs[i] = s;
+		}
+		return this;
+	}
+
+	public Limbs subtract(Limbs a) {
+		long borrow = 0;
+		for (int i = 0; i < limbs.length && (borrow != 0 || i < a.limbs.length); i++) {
+			long x = limbs[i], y = a.limb(i);
+			limbs[i] = x - y - borrow;
+			borrow = (borrow == 0 ? Long.compareUnsigned(x, y) < 0 : Long.compareUnsigned(x, y) <= 0) ? 1 : 0;
+		}
+		return this;
+	}
+
+	public Limbs negate() {
+		long carry = 1;
+		for (int i = 0; i < limbs.length; i++) {
+			limbs[i] = ~limbs[i] + carry;
+			if (limbs[i] != 0)
+				carry = 0;
+		}
+		return this;
+	}
+
+	public Limbs or(Limbs a) {
+		for (int i = Math.min(limbs.length, a.limbs.length) - 1; i >= 0; i--)
+			limbs[i] |= a.limbs[i];
+		return this;
+	}
+
+	public Limbs and(Limbs a) {
+		for (int i = 0; i < limbs.length; i++)
+			limbs[i] &= a.limb(i);
+		return this;
+	}
+
+	public Limbs andNot(Limbs a) {
+		for (int i = Math.min(limbs.length, a.limbs.length) - 1; i >= 0; i--)
+			limbs[i] &= ~a.limbs[i];
+		return this;
+	}
+
+	public Limbs xor(Limbs a) {
+		for (int i = Math.min(limbs.length, a.limbs.length) - 1; i >= 0; i--)
+			limbs[i] ^= a.limbs[i];
+		return this;
+	}
+
+	public Limbs not() {
+		for (int i = 0; i < limbs.length; i++)
+			limbs[i] = ~limbs[i];
+		return this;
+	}
+
+	public Limbs shiftLeft(int n) {
+		if (n < 0)
+			return shiftRight(-n);
+		int words = n >>> 6, bits = n & 63;
+		for (int i = limbs.length - 1; i >= 0; i--) {
+			int j = i - words;
+			long l = j >= 0 ? limbs[j] << bits : 0;
+			if (bits != 0 && j > 0)
+				l |= limbs[j - 1] >>> (64 - bits);
+			limbs[i] = l;
+		}
+		return this;
+	}
+
+	public Limbs shiftRight(int n) {
+		if (n < 0)
+			return shiftLeft(-n);
+		int words = n >>> 6, bits = n & 63;
+		for (int i = 0; i < limbs.length; i++) {
+			int j = i + words;
+			long l = j < limbs.length ? limbs[j] >>> bits : 0;
+			if (bits != 0 && j + 1 < limbs.length)
+				l |= limbs[j + 1] << (64 - bits);
+			limbs[i] = l;
+		}
+		return this;
+	}
+
+	public int bitCount() {
+		int count = 0;
+		for (long l : limbs)
+			count += Long.bitCount(l);
+		return count;
+	}
+
+	/**
+	 * @return the index of the highest set bit, or -1 if there is none
+	 */
+	public int highestOneBit() {
+		for (int i = limbs.length - 1; i >= 0; i--)
+			if (limbs[i] != 0)
+				return i * 64 + 63 - Long.numberOfLeadingZeros(limbs[i]);
+		return -1;
+	}
+
+	/**
+	 * @return the index of the lowest set bit, or -1 if there is none
+	 */
+	public int lowestOneBit() {
+		for (int i = 0; i < limbs.length; i++)
+			if (limbs[i] != 0)
+				return i * 64 + Long.numberOfTrailingZeros(limbs[i]);
+		return -1;
+	}
+
+	public BigInteger toBigInteger() {
+		byte[] bytes = new byte[limbs.length * 8 + 1];
+		for (int i = 0; i < limbs.length; i++)
+			for (int j = 0; j < 8; j++)
+				bytes[bytes.length - 1 - i * 8 - j] = (byte) (limbs[i] >>> (j * 8));
+		return new BigInteger(bytes);
+	}
+
+	@Override
+	public int compareTo(Limbs a) {
+		for (int i = Math.max(limbs.length, a.limbs.length) - 1; i >= 0; i--) {
+			int c = Long.compareUnsigned(limb(i), a.limb(i));
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Limbs && compareTo((Limbs) o) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int i = limbs.length;
+		while (i > 0 && limbs[i - 1] == 0)
+			i--;
+		return Arrays.hashCode(Arrays.copyOf(limbs, i));
+	}
+
+	@Override
+	public int intValue() {
+		return (int) limbs[0];
+	}
+
+	@Override
+	public long longValue() {
+		return limbs[0];
+	}
+
+	@Override
+	public float floatValue() {
+		return toBigInteger().floatValue();
+	}
+
+	@Override
+	public double doubleValue() {
+		return toBigInteger().doubleValue();
+	}
+
+	@Override
+	public String toString() {
+		return toBigInteger().toString();
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+/**
+ * The {@link Accumulator} of {@link LimbsArithmetic}: one {@link Limbs},
+ * modified in place by its own methods.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+final class LimbsAccumulator implements Accumulator<Limbs> {
+	private final Limbs limbs;
+	/**
+	 * The operand of the long overloads, so that they do not allocate.
+	 */
+	private final Limbs word = new Limbs(1);
+
+	LimbsAccumulator(int width) {
+		limbs = new Limbs(width);
+	}
+
+	@Override
+	public Accumulator<Limbs> set(Limbs a) {
+		limbs.set(a);
+		return this;
+	}
+
+	@Override
+	public Limbs value() {
+		return limbs.copy();
+	}
+
+	@Override
+	public boolean testBit(int n) {
+		return limbs.testBit(n);
+	}
+
+	@Override
+	public Accumulator<Limbs> setBit(int n) {
+		limbs.setBit(n);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> setBits(int from, int to) {
+		limbs.setBits(from, to);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> clearBits(int from, int to) {
+		limbs.clearBits(from, to);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> add(Limbs a) {
+		limbs.add(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> subtract(Limbs a) {
+		limbs.subtract(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> add(long a) {
+		word.limbs[0] = a;
+		return add(word);
+	}
+
+	@Override
+	public Accumulator<Limbs> subtract(long a) {
+		word.limbs[0] = a;
+		return subtract(word);
+	}
+
+	@Override
+	public Accumulator<Limbs> or(Limbs a) {
+		limbs.or(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> and(Limbs a) {
+		limbs.and(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> nand(Limbs a) {
+		limbs.andNot(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> xor(Limbs a) {
+		limbs.xor(a);
+		return this;
+	}
+
+	@Override
+	public Accumulator<Limbs> shiftLeft(int n) {
+		limbs.shiftLeft(n);
+		return this;
+	}
+
+	@Override
+	public int highestOneBit() {
+		return limbs.highestOneBit();
+	}
+
+	@Override
+	public int compareTo(Limbs a) {
+		return limbs.compareTo(a);
+	}
+
+	@Override
+	public int compareTo(long a) {
+		word.limbs[0] = a;
+		return compareTo(word);
+	}
+}
@@ -0,0 +1,276 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The arithmetic of {@link Limbs} of one width, for bit strings of 65 to
+ * {@link #MAX_LENGTH} bits. Values are unsigned and every operation is
+ * modulo 2<sup>{@link #maxBitLength()}</sup>. Each operation copies its first
+ * operand and then modifies the copy in place, so at most one Limbs is
+ * allocated per call; callers that own their operands may use the in-place
+ * methods of {@link Limbs} directly and allocate nothing.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class LimbsArithmetic implements BitArithmetic<Limbs> {
+	public static final int MAX_LENGTH = 4096;
+
+	private static final LimbsArithmetic[] instances = new LimbsArithmetic[MAX_LENGTH / Long.SIZE];
+	static {
+		for (int i = 0; i < instances.length; i++)
+			instances[i] = new LimbsArithmetic(i + 1);
+	}
+
+	private final int width;
+	private final Limbs zero, one;
+
+	private LimbsArithmetic(int width) {
+		this.width = width;
+		zero = new Limbs(width);
+		one = Limbs.valueOf(1, width);
+	}
+
+	/**
+	 * @return the arithmetic of the fewest limbs that hold length bits
+	 */
+	public static LimbsArithmetic getInstance(int length) {
+		if (length < 1 || length > MAX_LENGTH)
+			throw new IllegalArgumentException("Length, "+length+", must be between 1 and "+MAX_LENGTH+".");
+		return instances[(length - 1) / Long.SIZE];
+	}
+
+	/**
+	 * @return the number of limbs of each value
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * @return a new Limbs of this width, equal to a
+	 */
+	public Limbs copy(Limbs a) {
+		return new Limbs(Arrays.copyOf(a.limbs, width));
+	}
+
+	@Override
+	public int maxBitLength() {
+		return width * Long.SIZE;
+	}
+
+	@Override
+	public Limbs one() {
+		return one;
+	}
+
+	@Override
+	public Limbs zero() {
+		return zero;
+	}
+
+	@Override
+	public Set<Limbs> factors(Limbs a) {
+		Set<Limbs> factors = new TreeSet<Limbs>();
+		for (BigInteger d : Primes.divisors(Primes.factor(a.toBigInteger())))
+			factors.add(Limbs.valueOf(d, width));
+		return factors;
+	}
+
+	@Override
+	public Limbs[] primeFactorization(Limbs a) {
+		BigInteger[] factors = Primes.factor(a.toBigInteger());
+		Limbs[] limbs = new Limbs[factors.length];
+		for (int i = 0; i < factors.length; i++)
+			limbs[i] = Limbs.valueOf(factors[i], width);
+		return limbs;
+	}
+
+	@Override
+	public Limbs gcd(Limbs a, Limbs b) {
+		return Limbs.valueOf(a.toBigInteger().gcd(b.toBigInteger()), width);
+	}
+
+	@Override
+	public boolean congruent(Limbs a, Limbs b, Limbs mod) {
+		return mod(subtract(a, b), mod).isZero();
+	}
+
+	@Override
+	public Limbs mod(Limbs a, Limbs b) {
+		return Limbs.valueOf(a.toBigInteger().mod(b.toBigInteger()), width);
+	}
+
+	@Override
+	public Limbs add(Limbs a, Limbs b) {
+		return copy(a).add(b);
+	}
+
+	@Override
+	public Limbs negate(Limbs a) {
+		return copy(a).negate();
+	}
+
+	@Override
+	public Limbs subtract(Limbs a, Limbs b) {
+		return copy(a).subtract(b);
+	}
+
+	@Override
+	public Limbs multiply(Limbs a, Limbs b) {
+		long[] product = new long[width];
+		for (int i = 0; i < width && i < a.limbs.length; i++) {
+			long x = a.limbs[i], carry = 0;
+			if (x == 0)
+				continue;
+			for (int j = 0; i + j < width && j < b.limbs.length; j++) {
+				long y = b.limbs[j], lo = x * y, hi = multiplyHigh(x, y);
+				long s = product[i + j] + lo, c = Long.compareUnsigned(s, lo) < 0 ? 1 : 0;
+				long t = s + carry;
+				c += Long.compareUnsigned(t, s) < 0 ? 1 : 0;
+				product[i + j] = t;
+				carry = hi + c;
+			}
+			if (i + b.limbs.length < width)
+				product[i + b.limbs.length] += carry;
+		}
+		return new Limbs(product);
+	}
+
+	/**
+	 * @return the high 64 bits of the unsigned 128 bit product of x and y
+	 */
+	static long multiplyHigh(long x, long y) {
+		long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32,
+		     y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+		long p01 = x0 * y1, p10 = x1 * y0;
+		long mid = ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+		return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (mid >>> 32);
+	}
+
+	@Override
+	public Limbs pow(Limbs a, Limbs b) {
+		Limbs result = one, base = a;
+		for (int e = b.intValue(); e != 0; e >>>= 1) {
+			if ((e & 1) != 0)
+				result = multiply(result, base);
+			if (e > 1)
+				base = multiply(base, base);
+		}
+		return copy(result);
+	}
+
+	@Override
+	public Limbs max(Limbs a, Limbs b) {
+		return compare(a, b) >= 0 ? a : b;
+	}
+
+	@Override
+	public Limbs min(Limbs a, Limbs b) {
+		return compare(a, b) <= 0 ? a : b;
+	}
+
+	@Override
+	public boolean testBit(Limbs a, int n) {
+		return a.testBit(n);
+	}
+
+	@Override
+	public Limbs setBit(Limbs a, int n) {
+		return copy(a).setBit(n);
+	}
+
+	@Override
+	public Limbs clearBit(Limbs a, int n) {
+		return copy(a).clearBit(n);
+	}
+
+	@Override
+	public Limbs flipBit(Limbs a, int n) {
+		return copy(a).flipBit(n);
+	}
+
+	@Override
+	public int signum(Limbs a) {
+		return a.isZero() ? 0 : 1;
+	}
+
+	@Override
+	public Limbs reverse(Limbs a) {
+		long[] reverse = new long[width];
+		for (int i = 0; i < width; i++)
+			reverse[width - 1 - i] = Long.reverse(i < a.limbs.length ? a.limbs[i] : 0);
+		return new Limbs(reverse);
+	}
+
+	@Override
+	public Limbs or(Limbs a, Limbs b) {
+		return copy(a).or(b);
+	}
+
+	@Override
+	public Limbs and(Limbs a, Limbs b) {
+		return copy(a).and(b);
+	}
+
+	@Override
+	public Limbs nand(Limbs a, Limbs b) {
+		return copy(a).andNot(b);
+	}
+
+	@Override
+	public Limbs xor(Limbs a, Limbs b) {
+		return copy(a).xor(b);
+	}
+
+	@Override
+	public Limbs not(Limbs a) {
+		return copy(a).not();
+	}
+
+	@Override
+	public Limbs shiftLeft(Limbs a, int n) {
+		return copy(a).shiftLeft(n);
+	}
+
+	@Override
+	public Limbs shiftRight(Limbs a, int n) {
+		return copy(a).shiftRight(n);
+	}
+
+	@Override
+	public int bitCount(Limbs a) {
+		return a.bitCount();
+	}
+
+	@Override
+	public int highestOneBit(Limbs a) {
+		return a.highestOneBit();
+	}
+
+	@Override
+	public int lowestOneBit(Limbs a) {
+		return a.lowestOneBit();
+	}
+
+	@Override
+	public String toString(Limbs a, int radix) {
+		return a.toBigInteger().toString(radix);
+	}
+
+	@Override
+	public int compare(Limbs a, Limbs b) {
+		return a.compareTo(b);
+	}
+
+	@Override
+	public Accumulator<Limbs> newAccumulator() {
+		return new LimbsAccumulator(width);
+	}
+}
@@ -22,14 +22,16 @@ public class LongArithmetic implements BitArithmetic<Long> {
 
 	@Override
 	public Set<Long> factors(Long a) {
-		// TODO Auto-generated method stub
-		return null;
+		return Primes.divisors(Primes.factor(a));
 	}
 
 	@Override
 	public Long[] primeFactorization(Long a) {
-		// TODO Auto-generated method stub
-		return null;
+		long[] factors = Primes.factor(a);
+		Long[] boxed = new Long[factors.length];
+		for (int i = 0; i < factors.length; i++)
+			boxed[i] = factors[i];
+		return boxed;
 	}
 
 	@Override
@@ -188,4 +190,13 @@ public class LongArithmetic implements BitArithmetic<Long> {
 	public int compare(Long a, Long b) {
 		return a < b ? -1 : (a > b ? 1 : 0);
 	}
+
+	@Override
+	public Accumulator<Long> newAccumulator() {
+		return new PrimitiveAccumulator<Long>(Long.SIZE) {
+			public Long value() {
+				return value;
+			}
+		};
+	}
 }
@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A sieve of Eratosthenes and the factorizations behind
+ * {@link IntegralArithmetic#factors(Number)} and
+ * {@link IntegralArithmetic#primeFactorization(Number)}: trial division by the
+ * primes below 2<sup>16</sup>, then Pollard's rho on what remains. Any long
+ * is factored in milliseconds; a BigInteger only as quickly as rho finds its
+ * second largest prime factor.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public final class Primes {
+	private static final int TRIAL = 1 << 16;
+	private static final int[] small = sieve(TRIAL);
+	private static final int CERTAINTY = 100;
+
+	private Primes() {}
+
+	/**
+	 * @return the primes up to and including n, in ascending order
+	 */
+	public static int[] sieve(int n) {
+		if (n < 2)
+			return new int[0];
+		boolean[] composite = new boolean[n / 2 + 1];
+		int count = 1;
+		for (int i = 3; i <= n; i += 2) {
+			if (composite[i / 2])
+				continue;
+			count++;
+			for (long j = (long) i * i; j <= n; j += 2 * i)
+				composite[(int) (j / 2)] = true;
+		}
+		int[] primes = new int[count];
+		primes[0] = 2;
+		for (int i = 3, j = 1; i <= n; i += 2)
+			if (!composite[i / 2])
+				primes[j++] = i;
+		return primes;
+	}
+
+	/**
+	 * @return the prime factors of the magnitude of a, with multiplicity, in ascending order
+	 */
+	public static long[] factor(long a) {
+		if (a == 0)
+			throw new IllegalArgumentException("Cannot factor 0.");
+		int twos = Long.numberOfTrailingZeros(a);
+		long n = Math.abs(a >> twos);
+		long[] factors = new long[Long.SIZE];
+		int count = 0;
+		while (count < twos)
+			factors[count++] = 2;
+		for (int i = 1; i < small.length && (long) small[i] * small[i] <= n; i++)
+			while (n % small[i] == 0) {
+				factors[count++] = small[i];
+				n /= small[i];
+			}
+		if (n >= (long) TRIAL * TRIAL) {
+			List<BigInteger> large = new ArrayList<BigInteger>();
+			rho(BigInteger.valueOf(n), large);
+			for (BigInteger factor : large)
+				factors[count++] = factor.longValue();
+		} else if (n > 1)
+			factors[count++] = n;
+		Arrays.sort(factors, 0, count);
+		return Arrays.copyOf(factors, count);
+	}
+
+	/**
+	 * @return the prime factors of the magnitude of a, with multiplicity, in ascending order
+	 */
+	public static BigInteger[] factor(BigInteger a) {
+		if (a.signum() == 0)
+			throw new IllegalArgumentException("Cannot factor 0.");
+		List<BigInteger> factors = new ArrayList<BigInteger>();
+		BigInteger n = a.abs();
+		int twos = n.getLowestSetBit();
+		for (int i = 0; i < twos; i++)
+			factors.add(BigInteger.valueOf(2));
+		n = n.shiftRight(twos);
+		for (int i = 1; i < small.length && n.bitLength() > 1; i++) {
+			BigInteger p = BigInteger.valueOf(small[i]);
+			if (p.multiply(p).compareTo(n) > 0)
+				break;
+			for (BigInteger[] qr = n.divideAndRemainder(p); qr[1].signum() == 0; qr = n.divideAndRemainder(p)) {
+				factors.add(p);
+				n = qr[0];
+			}
+		}
+		rho(n, factors);
+		Collections.sort(factors);
+		return factors.toArray(new BigInteger[factors.size()]);
+	}
+
+	/**
+	 * Splits n, which has no factor below 2<sup>16</sup>, until every part is prime.
+	 */
+	private static void rho(BigInteger n, List<BigInteger> factors) {
+		if (n.equals(BigInteger.ONE))
+			return;
+		if (n.isProbablePrime(CERTAINTY)) {
+			factors.add(n);
+			return;
+		}
+		BigInteger d = divisor(n);
+		rho(d, factors);
+		rho(n.divide(d), factors);
+	}
+
+	/**
+	 * @return a proper divisor of the composite n, by Pollard's rho with
+	 * Floyd's cycle finding, for x<sup>2</sup> + c with increasing c
+	 */
+	private static BigInteger divisor(BigInteger n) {
+		for (long c = 1;; c++) {
+			BigInteger x = BigInteger.valueOf(2), y = x, d = BigInteger.ONE, add = BigInteger.valueOf(c);
+			while (d.equals(BigInteger.ONE)) {
+				x = x.multiply(x).add(add).mod(n);
+				y = y.multiply(y).add(add).mod(n);
+				y = y.multiply(y).add(add).mod(n);
+				d = x.subtract(y).gcd(n);
+			}
+			if (!d.equals(n))
+				return d;
+		}
+	}
+
+	/**
+	 * @return every positive divisor of the number with the given prime
+	 * factors, in ascending order
+	 */
+	static List<BigInteger> divisors(BigInteger[] primeFactors) {
+		List<BigInteger> divisors = new ArrayList<BigInteger>();
+		divisors.add(BigInteger.ONE);
+		for (int i = 0; i < primeFactors.length;) {
+			BigInteger p = primeFactors[i];
+			int size = divisors.size();
+			BigInteger power = BigInteger.ONE;
+			for (; i < primeFactors.length && primeFactors[i].equals(p); i++) {
+				power = power.multiply(p);
+				for (int j = 0; j < size; j++)
+					divisors.add(divisors.get(j).multiply(power));
+			}
+		}
+		Collections.sort(divisors);
+		return divisors;
+	}
+
+	/**
+	 * @return every positive divisor of the number with the given prime factors
+	 */
+	static Set<Long> divisors(long[] primeFactors) {
+		Set<Long> divisors = new TreeSet<Long>();
+		divisors.add(1L);
+		for (int i = 0; i < primeFactors.length;) {
+			long p = primeFactors[i];
+			List<Long> lower = new ArrayList<Long>(divisors);
+			long power = 1;
+			for (; i < primeFactors.length && primeFactors[i] == p; i++) {
+				power *= p;
+				for (long d : lower)
+					divisors.add(d * power);
+			}
+		}
+		return divisors;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+/**
+ * The {@link Accumulator} of the primitive arithmetics, which holds its value
+ * in a <code>long</code>, sign extended from the width of the primitive after
+ * every operation, so that only {@link #value()} boxes.
+ *
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+abstract class PrimitiveAccumulator<V extends Number> implements Accumulator<V> {
+	private final int shift;
+	private final long mask;
+	long value;
+
+	/**
+	 * @param bits the width of the primitive
+	 */
+	PrimitiveAccumulator(int bits) {
+		shift = Long.SIZE - bits;
+		mask = -1L >>> shift;
+	}
+
+	private PrimitiveAccumulator<V> narrow() {
+		value = value << shift >> shift;
+		return this;
+	}
+
+	/**
+	 * @return a mask of the bits from (inclusive) to to (exclusive)
+	 */
+	static long bits(int from, int to) {
+		if (from >= to || from >= Long.SIZE)
+			return 0;
+		return (to >= Long.SIZE ? -1L : (1L << to) - 1) & (-1L << from);
+	}
+
+	@Override
+	public Accumulator<V> set(V a) {
+		value = a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public boolean testBit(int n) {
+		return (value >> Math.min(n, Long.SIZE - 1) & 1) != 0;
+	}
+
+	@Override
+	public Accumulator<V> setBit(int n) {
+		value |= 1L << n;
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> setBits(int from, int to) {
+		value |= bits(from, to);
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> clearBits(int from, int to) {
+		value &= ~bits(from, to);
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> add(V a) {
+		value += a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> subtract(V a) {
+		value -= a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> add(long a) {
+		value += a;
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> subtract(long a) {
+		value -= a;
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> or(V a) {
+		value |= a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> and(V a) {
+		value &= a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> nand(V a) {
+		value &= ~a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> xor(V a) {
+		value ^= a.longValue();
+		return narrow();
+	}
+
+	@Override
+	public Accumulator<V> shiftLeft(int n) {
+		value = n < Long.SIZE ? value << n : 0;
+		return narrow();
+	}
+
+	@Override
+	public int highestOneBit() {
+		return Long.SIZE - 1 - Long.numberOfLeadingZeros(value & mask);
+	}
+
+	@Override
+	public int compareTo(V a) {
+		return Long.compare(value, a.longValue());
+	}
+
+	@Override
+	public int compareTo(long a) {
+		return Long.compare(value, a);
+	}
+}
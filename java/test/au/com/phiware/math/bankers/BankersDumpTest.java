@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersDumpTest {
+
+	@Test
+	public void testBinary() throws IOException {
+		LongBankers bankers = new LongBankers(20);
+		Path path = Files.createTempFile("bankers", ".bin");
+		try {
+			assertEquals(3L << 20, new BankersDump(bankers, BankersDump.Format.BINARY).write(path));
+			ByteBuffer bits = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+			for (long i = 0; i < 1L << 20; i++)
+				assertEquals("to "+i, bankers.to(i), bits.getShort() & 0xFFFF | (bits.get() & 0xFF) << 16);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testDelta() throws IOException {
+		LongBankers bankers = new LongBankers(40);
+		long from = (1L << 39) - 3 * BankersDump.SHARD / 2, to = from + 5 * BankersDump.SHARD;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BankersDump(bankers, BankersDump.Format.DELTA).write(from, to, Channels.newChannel(out));
+		ByteBuffer deltas = ByteBuffer.wrap(out.toByteArray());
+		long b = 0;
+		for (long i = from; i < to; i++) {
+			long zigzag = 0;
+			for (int shift = 0;; shift += 7) {
+				byte next = deltas.get();
+				zigzag |= (next & 0x7FL) << shift;
+				if (next >= 0)
+					break;
+			}
+			b += (zigzag >>> 1) ^ -(zigzag & 1);
+			assertEquals("to "+i, bankers.to(i), b);
+		}
+		assertFalse(deltas.hasRemaining());
+	}
+
+	@Test
+	public void testText() throws IOException {
+		int n = 9;
+		LongBankers bankers = new LongBankers(n);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BankersDump(bankers, BankersDump.Format.TEXT).write(1, 1L << n, Channels.newChannel(out));
+		StringBuilder expected = new StringBuilder();
+		for (long i = 1; i < 1L << n; i++)
+			expected.append(String.format("%"+n+"s", Long.toBinaryString(i)).replaceAll("[ 0]", "."))
+				.append(" : ")
+				.append(String.format("%"+n+"s", Long.toBinaryString(bankers.to(i))).replaceAll("[ 0]", "."))
+				.append(System.lineSeparator());
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(0, new BankersDump(new LongBankers(10), BankersDump.Format.BINARY).write(5, 5, Channels.newChannel(out)));
+		assertEquals(0, out.size());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLong() throws IOException {
+		new BankersDump(new LongBankers(BankersDump.MAX_LENGTH + 1), BankersDump.Format.BINARY).write(Files.createTempFile("bankers", ".bin"));
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import au.com.phiware.math.binom.Binom;
+import au.com.phiware.math.binom.BinomCache;
+import au.com.phiware.math.binom.BinomGraph;
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersEventsTest {
+
+	/**
+	 * @return the events named name
+	 */
+	private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> named = new ArrayList<RecordedEvent>();
+		for (RecordedEvent event : events)
+			if (event.getEventType().getName().equals(name))
+				named.add(event);
+		return named;
+	}
+
+	@Test
+	public void testEvents() throws IOException {
+		Path path = Files.createTempFile("bankers", ".jfr");
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable("au.com.phiware.math.TriangleBuild");
+			recording.enable("au.com.phiware.math.CacheEviction");
+			recording.enable("au.com.phiware.math.RowLoad");
+			recording.enable("au.com.phiware.math.Conversion").withThreshold(Duration.ZERO);
+			recording.start();
+
+			Bankers<BigInteger> bankers = new Bankers<BigInteger>(100,
+					new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance()),
+					BinomCache.<Integer, Binom<BigInteger>>lru(1, BinomCache.ENTRIES)){};
+			BigInteger light = BigInteger.ONE.shiftLeft(10), heavy = BigInteger.ONE.shiftLeft(60);
+			assertEquals(light, bankers.from(bankers.to(light)));
+			assertEquals(heavy, bankers.from(bankers.to(heavy)));
+			bankers.to(light);
+			bankers.to(new BigInteger[] { light, heavy }, new BigInteger[2]);
+
+			recording.stop();
+			recording.dump(path);
+			events = RecordingFile.readAllEvents(path);
+		} finally {
+			Files.delete(path);
+		}
+
+		List<RecordedEvent> builds = events(events, "au.com.phiware.math.TriangleBuild");
+		assertFalse(builds.isEmpty());
+		for (RecordedEvent build : builds) {
+			assertTrue(build.getInt("rows") > 0);
+			assertTrue(build.getLong("nodes") >= build.getInt("rows"));
+		}
+
+		List<RecordedEvent> loads = events(events, "au.com.phiware.math.RowLoad");
+		boolean reload = false;
+		for (RecordedEvent load : loads) {
+			assertEquals(100, load.getInt("length"));
+			reload |= load.getBoolean("reload");
+		}
+		assertTrue("a row evicted by the lru cache should be reloaded", reload);
+		assertFalse(events(events, "au.com.phiware.math.CacheEviction").isEmpty());
+
+		List<RecordedEvent> conversions = events(events, "au.com.phiware.math.Conversion");
+		assertEquals(6, conversions.size());
+		int batch = 0;
+		for (RecordedEvent conversion : conversions) {
+			assertEquals(100, conversion.getInt("length"));
+			if (conversion.getInt("count") == 2)
+				batch++;
+		}
+		assertEquals(1, batch);
+	}
+
+	/**
+	 * With the default threshold, quick conversions are not recorded.
+	 */
+	@Test
+	public void testThreshold() throws IOException {
+		Path path = Files.createTempFile("bankers", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("au.com.phiware.math.Conversion");
+			recording.start();
+			LongBankers bankers = new LongBankers(40);
+			bankers.prewarm();
+			Bankers<Long> walk = new Bankers<Long>(40, Binomials.sharedBinomFactory(LongArithmetic.getInstance())){};
+			for (long i = 0; i < 1000; i++)
+				walk.to(i);
+			recording.stop();
+			recording.dump(path);
+			assertTrue(events(RecordingFile.readAllEvents(path), "au.com.phiware.math.Conversion").size() < 10);
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
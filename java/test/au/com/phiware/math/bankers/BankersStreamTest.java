@@ -0,0 +1,162 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersStreamTest {
+
+	@Test
+	public void testConvert() {
+		BankersStream stream = new BankersStream(8);
+		assertEquals("......1. : ......1.", stream.convert("2"));
+		assertEquals("11111111 : 11111111", stream.convert("255"));
+		assertEquals("2", stream.convert("010"));
+		assertEquals("2", stream.convert("0b10"));
+		assertEquals("11", stream.convert("0000000011"));
+		assertFalse(stream.isBits("11"));
+		assertTrue(stream.isBits("100000000"));
+		assertTrue(stream.isBits("10000000000000000000000"));
+		assertFalse(new BankersStream(63).isBits("1111111111111111111"));
+	}
+
+	/**
+	 * Length 64 is too long for a LongBankers, but its ranks up to
+	 * Long.MAX_VALUE are converted.
+	 */
+	@Test
+	public void testWide() throws ClassNotFoundException {
+		BankersStream stream = new BankersStream(Long.SIZE);
+		Bankers<BigInteger> bankers = new Bankers<BigInteger>(Long.SIZE){};
+		Random random = new Random(Long.SIZE);
+		for (int t = 0; t < 100; t++) {
+			long rank = t == 0 ? Long.MAX_VALUE : random.nextLong() >>> 1;
+			long b = bankers.to(BigInteger.valueOf(rank)).longValue();
+			String bits = String.format("%64s", Long.toBinaryString(b)).replace(' ', '0');
+			assertEquals(String.format("%64s", Long.toBinaryString(rank)).replaceAll("[ 0]", ".")+" : "+bits.replace('0', '.'), stream.convert(Long.toString(rank)));
+			if (b >= 0)
+				assertEquals(Long.toString(rank), stream.convert(bits).trim());
+		}
+	}
+
+	/**
+	 * A bit string of 64 bits with its top bit set, whose rank may be beyond
+	 * Long.MAX_VALUE.
+	 */
+	@Test
+	public void testWideTopBit() throws ClassNotFoundException, IOException {
+		BankersStream stream = new BankersStream(Long.SIZE);
+		Bankers<BigInteger> bankers = new Bankers<BigInteger>(Long.SIZE){};
+		StringBuilder in = new StringBuilder(), expected = new StringBuilder();
+		for (BigInteger b : new BigInteger[] { BigInteger.ONE.shiftLeft(63), BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE), new BigInteger("C000000000000001", 16) }) {
+			String bits = b.toString(2);
+			assertEquals(64, bits.length());
+			assertEquals(bankers.from(b).toString(), stream.convert(bits));
+			in.append(bits).append('\n');
+			expected.append(bankers.from(b)).append(System.lineSeparator());
+		}
+		StringWriter out = new StringWriter();
+		assertEquals(3, stream.text(new BufferedReader(new StringReader(in.toString())), out));
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testRankTooBig() {
+		new BankersStream(8).convert("256");
+	}
+
+	/**
+	 * More lines than a batch, each compared with the conversion of its
+	 * argument.
+	 */
+	@Test
+	public void testText() throws IOException {
+		int n = 30;
+		LongBankers bankers = new LongBankers(n);
+		BankersStream stream = new BankersStream(n);
+		Random random = new Random(n);
+		StringBuilder in = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < BankersStream.BATCH + 100; i++) {
+			String value;
+			if (i % 1000 == 999)
+				value = "";
+			else if (i % 2 == 0)
+				value = Long.toString(random.nextInt(1 << n));
+			else
+				value = "0b" + Long.toBinaryString(bankers.to(random.nextInt(1 << n)));
+			in.append(value).append('\n');
+			expected.append(value.isEmpty() ? value : stream.convert(value)).append(System.lineSeparator());
+		}
+		StringWriter out = new StringWriter();
+		assertEquals(BankersStream.BATCH + 100, stream.text(new BufferedReader(new StringReader(in.toString())), out));
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	/**
+	 * A malformed line fails its batch, which is not written, and is
+	 * reported by its line number.
+	 */
+	@Test
+	public void testMalformed() throws IOException {
+		BankersStream stream = new BankersStream(8);
+		StringBuilder in = new StringBuilder();
+		for (int i = 0; i < BankersStream.BATCH + 5; i++)
+			in.append(i == BankersStream.BATCH + 2 ? "x2" : Integer.toString(i & 0xFF)).append('\n');
+		StringWriter out = new StringWriter();
+		try {
+			stream.text(new BufferedReader(new StringReader(in.toString())), out);
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line "+(BankersStream.BATCH + 3)+", x2"));
+			assertTrue(e.getCause() instanceof NumberFormatException);
+		}
+		assertEquals(BankersStream.BATCH, out.toString().split(System.lineSeparator()).length);
+	}
+
+	@Test
+	public void testBinary() throws IOException {
+		int n = 40, records = 16 * BankersStream.BATCH + 3;
+		LongBankers bankers = new LongBankers(n);
+		Random random = new Random(n);
+		ByteBuffer ranks = ByteBuffer.allocate(records * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < records; i++)
+			ranks.putLong(random.nextLong() >>> (Long.SIZE - n));
+
+		ByteArrayOutputStream bits = new ByteArrayOutputStream();
+		BankersStream stream = new BankersStream(n);
+		assertEquals(records, stream.binary(Channels.newChannel(new ByteArrayInputStream(ranks.array())), Channels.newChannel(bits), true));
+		ByteBuffer b = ByteBuffer.wrap(bits.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < records; i++)
+			assertEquals(bankers.to(ranks.getLong(i * Long.BYTES)), b.getLong());
+
+		ByteArrayOutputStream back = new ByteArrayOutputStream();
+		assertEquals(records, stream.binary(Channels.newChannel(new ByteArrayInputStream(bits.toByteArray())), Channels.newChannel(back), false));
+		assertArrayEquals(ranks.array(), back.toByteArray());
+	}
+
+	@Test(expected=IOException.class)
+	public void testPartialRecord() throws IOException {
+		new BankersStream(40).binary(Channels.newChannel(new ByteArrayInputStream(new byte[12])),
+				Channels.newChannel(new ByteArrayOutputStream()), true);
+	}
+}
@@ -5,11 +5,29 @@ package au.com.phiware.math.bankers;
 
 import static org.junit.Assert.*;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
+import au.com.phiware.math.binom.Binom;
+import au.com.phiware.math.binom.BinomArray;
+import au.com.phiware.math.binom.BinomCache;
 import au.com.phiware.math.binom.BinomCounter;
+import au.com.phiware.math.binom.Binomials;
+import au.com.phiware.math.ring.AdaptiveArithmetic;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.Limbs;
+import au.com.phiware.math.ring.LongArithmetic;
 
 /**
  * @author Corin Lawson <me@corinlawson.com.au>
@@ -122,4 +140,364 @@ public class BankersTest {
 		assertEquals("Should be the same for length "+bankers.length(), b, bankers.to(i));
 		//assertTrue("Should be efficient at "+i+" of length "+bankers.length(), BinomCounter.hasAllOnes());
 	}
+
+	/**
+	 * The primitive engines should agree with the generic {@link Bankers}.
+	 * @throws ClassNotFoundException if arithmetic is not found for Long or Integer
+	 */
+	@Test
+	public void testPrimitiveUpTo12() throws ClassNotFoundException {
+		for (int n = 2; n <= 12; n++) {
+			Bankers<Long> longBankers = new Bankers<Long>(n){};
+			Bankers<Integer> intBankers = new Bankers<Integer>(n){};
+			LongBankers longPrimitive = new LongBankers(n);
+			IntBankers intPrimitive = new IntBankers(n);
+			long b = 0;
+			for (long i = 0; i < 1L << n; i++) {
+				assertEquals("to "+i+" for length "+n, longBankers.to(i), (Long) longPrimitive.to(i));
+				assertEquals("to "+i+" for length "+n, intBankers.to((int) i), (Integer) intPrimitive.to((int) i));
+				assertEquals("from "+b+" for length "+n, i, longPrimitive.from(b));
+				assertEquals("from "+b+" for length "+n, i, intPrimitive.from((int) b));
+				assertEquals("next "+b+" for length "+n, longBankers.next(b), (Long) longPrimitive.next(b));
+				assertEquals("next "+b+" for length "+n, intBankers.next((int) b), (Integer) intPrimitive.next((int) b));
+				b = longPrimitive.next(b);
+			}
+		}
+	}
+
+	@Test
+	public void testLongBankersWithLength63() throws ClassNotFoundException {
+		Bankers<Long> bankers = new Bankers<Long>(63){};
+		LongBankers primitive = new LongBankers(63);
+		Random random = new Random(63);
+		for (int t = 0; t < 1000; t++) {
+			long i = random.nextLong() & Long.MAX_VALUE;
+			long b = primitive.to(i);
+			assertEquals("to "+i, bankers.to(i), (Long) b);
+			assertEquals("from "+b, i, primitive.from(b));
+			assertEquals("next "+b, bankers.next(b), (Long) primitive.next(b));
+		}
+	}
+
+	@Test
+	public void testIntBankersWithLength31() throws ClassNotFoundException {
+		Bankers<Integer> bankers = new Bankers<Integer>(31){};
+		IntBankers primitive = new IntBankers(31);
+		Random random = new Random(31);
+		for (int t = 0; t < 1000; t++) {
+			int i = random.nextInt() & Integer.MAX_VALUE;
+			int b = primitive.to(i);
+			assertEquals("to "+i, bankers.to(i), (Integer) b);
+			assertEquals("from "+b, i, primitive.from(b));
+			assertEquals("next "+b, bankers.next(b), (Integer) primitive.next(b));
+		}
+	}
+
+	@Test
+	public void testTable() {
+		for (int n = 1; n <= 18; n++) {
+			IntBankers expected = new IntBankers(n);
+			TableBankers table = new TableBankers(n);
+			for (int i = 0; i < 1 << n; i++) {
+				int b = expected.to(i);
+				assertEquals("to "+i, b, table.to(i));
+				assertEquals("from "+b, i, table.from(b));
+			}
+		}
+	}
+
+	@Test
+	public void testTableRange() {
+		TableBankers table = new TableBankers(8);
+		for (int v : new int[] {-1, 256}) {
+			try {
+				table.to(v);
+				fail("to "+v);
+			} catch (IllegalArgumentException e) {}
+			try {
+				table.from(new int[] {0, v}, new int[2]);
+				fail("from "+v);
+			} catch (IllegalArgumentException e) {}
+		}
+	}
+
+	@Test
+	public void testTableBudget() {
+		assertEquals(24, TableBankers.maxLength());
+		assertTrue(IntBankers.forLength(10) instanceof TableBankers);
+		assertFalse(IntBankers.forLength(25) instanceof TableBankers);
+		System.setProperty(TableBankers.BUDGET_PROPERTY, Integer.toString(8 << 10));
+		try {
+			assertEquals(10, TableBankers.maxLength());
+			assertFalse(IntBankers.forLength(11) instanceof TableBankers);
+		} finally {
+			System.clearProperty(TableBankers.BUDGET_PROPERTY);
+		}
+	}
+
+	@Test
+	public void testBinomArrayUpTo10() throws ClassNotFoundException {
+		for (int n = 2; n <= 10; n++) {
+			Bankers<Integer> bankers = new Bankers<Integer>(n, new BinomArray<Integer>(IntegerArithmetic.getInstance())){};
+			testTo(bankers);
+			testFrom(bankers);
+		}
+	}
+
+	public void testShared(final Bankers<Long> bankers) throws Exception {
+		final LongBankers expected = new LongBankers(bankers.length());
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (int t = 0; t < threads; t++) {
+				final long seed = t;
+				results.add(executor.submit(new Callable<Void>() {
+					public Void call() {
+						Random random = new Random(seed);
+						for (int j = 0; j < 2000; j++) {
+							long i = random.nextLong() & ((1L << bankers.length()) - 1);
+							long b = expected.to(i);
+							assertEquals("to "+i, (Long) b, bankers.to(i));
+							assertEquals("from "+b, (Long) i, bankers.from(b));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> result : results)
+				result.get();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * One Bankers (and triangle) should serve many threads at once.
+	 * @throws Exception if any thread fails
+	 */
+	@Test
+	public void testSharedBetweenThreads() throws Exception {
+		testShared(new Bankers<Long>(40){});
+		testShared(new Bankers<Long>(40, new BinomArray<Long>(LongArithmetic.getInstance())){});
+	}
+
+	/**
+	 * The batch conversions should agree with the scalar conversions.
+	 * @throws ClassNotFoundException if arithmetic is not found for BigInteger
+	 */
+	@Test
+	public void testBatch() throws ClassNotFoundException {
+		Random random = new Random(70);
+		Bankers<BigInteger> bankers = new Bankers<BigInteger>(70){};
+		BigInteger[] ranks = new BigInteger[500], bits = new BigInteger[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			ranks[i] = new BigInteger(bankers.length(), random);
+		ranks[0] = BigInteger.ZERO;
+		ranks[1] = BigInteger.ONE.shiftLeft(bankers.length()).subtract(BigInteger.ONE);
+		bankers.to(ranks, bits);
+		for (int i = 0; i < ranks.length; i++)
+			assertEquals("to "+ranks[i], bankers.to(ranks[i]), bits[i]);
+		BigInteger[] from = new BigInteger[bits.length];
+		bankers.from(bits, from);
+		for (int i = 0; i < ranks.length; i++)
+			assertEquals("from "+bits[i], ranks[i], from[i]);
+
+		LongBankers primitive = new LongBankers(40);
+		long[] longRanks = new long[500], longBits = new long[longRanks.length];
+		for (int i = 0; i < longRanks.length; i++)
+			longRanks[i] = random.nextLong() & ((1L << primitive.length()) - 1);
+		primitive.to(longRanks, longBits);
+		for (int i = 0; i < longRanks.length; i++)
+			assertEquals("to "+longRanks[i], primitive.to(longRanks[i]), longBits[i]);
+		primitive.from(longBits, longBits);
+		assertArrayEquals("from(to(ranks))", longRanks, longBits);
+
+		for (int n : new int[] {1, 2, 3, 31, 63}) {
+			LongBankers longs = new LongBankers(n);
+			long[] l = new long[501];
+			for (int i = 0; i < l.length; i++)
+				l[i] = random.nextLong() & ((1L << n) - 1);
+			l[0] = 0;
+			l[1] = (1L << n) - 1;
+			long[] b = new long[l.length];
+			longs.to(l, b);
+			for (int i = 0; i < l.length; i++)
+				assertEquals("to "+l[i]+" of "+n, longs.to(l[i]), b[i]);
+			longs.from(b, b);
+			assertArrayEquals("from(to(ranks)) of "+n, l, b);
+
+			IntBankers ints = n > IntBankers.MAX_LENGTH ? new TableBankers(12) : new IntBankers(n);
+			int[] r = new int[l.length], c = new int[l.length];
+			for (int i = 0; i < r.length; i++)
+				r[i] = (int) l[i] & ((1 << ints.length()) - 1);
+			ints.to(r, c);
+			for (int i = 0; i < r.length; i++)
+				assertEquals("to "+r[i]+" of "+ints.length(), ints.to(r[i]), c[i]);
+			ints.from(c, c);
+			assertArrayEquals("from(to(ranks)) of "+ints.length(), r, c);
+		}
+
+		Long[] next = new Long[100];
+		primitive.next(primitive.to(longRanks[0]), longBits);
+		new Bankers<Long>(primitive.length()){}.next(primitive.to(longRanks[0]), next);
+		for (int i = 0; i < next.length; i++) {
+			assertEquals("next "+i+" after rank "+longRanks[0], longRanks[0] + i + 1, primitive.from(longBits[i]));
+			assertEquals("next "+i+" after rank "+longRanks[0], next[i], (Long) longBits[i]);
+		}
+	}
+
+	@Test
+	public void testStream() throws ClassNotFoundException {
+		LongBankers primitive = new LongBankers(20);
+		long[] expected = new long[1 << primitive.length()];
+		primitive.next(0L, expected);
+		System.arraycopy(expected, 0, expected, 1, expected.length - 1);
+		expected[0] = 0;
+		assertArrayEquals("sequential", expected, primitive.longStream().toArray());
+		assertArrayEquals("parallel", expected, primitive.longStream().parallel().toArray());
+		assertArrayEquals("range", Arrays.copyOfRange(expected, 12345, 54321), primitive.longStream(12345, 54321).parallel().toArray());
+		assertEquals("empty", 0, primitive.longStream(5, 5).count());
+
+		int[] ints = new IntBankers(primitive.length()).intStream().parallel().toArray();
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("int", expected[i], ints[i]);
+
+		Bankers<Long> bankers = new Bankers<Long>(primitive.length()){};
+		Long[] generic = bankers.stream().parallel().toArray(Long[]::new);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("generic", (Long) expected[i], generic[i]);
+
+		Bankers<BigInteger> big = new Bankers<BigInteger>(70){};
+		BigInteger from = BigInteger.ONE.shiftLeft(68);
+		BigInteger[] bits = big.stream(from, from.add(BigInteger.valueOf(5000))).parallel().toArray(BigInteger[]::new);
+		assertEquals("big count", 5000, bits.length);
+		for (int i = 0; i < bits.length; i++)
+			assertEquals("big", big.to(from.add(BigInteger.valueOf(i))), bits[i]);
+	}
+
+	@Test
+	public void testBigIntegerNext() throws ClassNotFoundException {
+		Bankers<BigInteger> bankers = new Bankers<BigInteger>(100){};
+		Random random = new Random(100);
+		for (int t = 0; t < 1000; t++) {
+			BigInteger i = new BigInteger(bankers.length(), random);
+			if (i.bitCount() == bankers.length())
+				continue;
+			assertEquals("next after rank "+i, bankers.to(i.add(BigInteger.ONE)), bankers.next(bankers.to(i)));
+		}
+	}
+
+	@Test
+	public void testLimbsSameAsBigInteger() throws ClassNotFoundException {
+		for (int n : new int[] {65, 100, 128, 200}) {
+			Bankers<BigInteger> big = new Bankers<BigInteger>(n){};
+			Bankers<Limbs> generic = new Bankers<Limbs>(n){};
+			LimbsBankers limbs = new LimbsBankers(n);
+			int width = limbs.getArithmetic().width();
+			Random random = new Random(n);
+			for (int t = 0; t < 200; t++) {
+				BigInteger i = new BigInteger(n, random);
+				BigInteger b = big.to(i);
+				assertEquals("to "+i, b, limbs.to(Limbs.valueOf(i, width)).toBigInteger());
+				assertEquals("generic to "+i, b, generic.to(Limbs.valueOf(i, width)).toBigInteger());
+				assertEquals("from "+b, i, limbs.from(Limbs.valueOf(b, width)).toBigInteger());
+				if (i.bitCount() < n)
+					assertEquals("next "+b, big.next(b), limbs.next(Limbs.valueOf(b, width)).toBigInteger());
+			}
+		}
+	}
+
+	@Test
+	public void testWeightIndex() throws ClassNotFoundException {
+		for (int n = 1; n <= 12; n++) {
+			Bankers<Integer> bankers = new Bankers<Integer>(n){};
+			IntBankers intBankers = new IntBankers(n);
+			int w = 0;
+			for (int i = 0; i < 1 << n; i++) {
+				int c = Integer.bitCount(bankers.to(i));
+				if (c > w)
+					assertEquals("first rank of weight "+c+" at length "+n, i, (int) bankers.firstRankOfWeight(w = c));
+				assertEquals("weight of rank "+i+" at length "+n, c, bankers.weightOfRank(i));
+				assertEquals("int weight of rank "+i+" at length "+n, c, intBankers.weightOfRank(i));
+			}
+			for (int k = 0; k <= n; k++)
+				assertEquals("int first rank of weight "+k, bankers.firstRankOfWeight(k), intBankers.firstRankOfWeight(k));
+		}
+
+		LongBankers longBankers = new LongBankers(63);
+		Bankers<BigInteger> big = new Bankers<BigInteger>(100){};
+		Random random = new Random(63);
+		for (int t = 0; t < 1000; t++) {
+			long l = random.nextLong() >>> 1;
+			assertEquals("weight of rank "+l, Long.bitCount(longBankers.to(l)), longBankers.weightOfRank(l));
+			BigInteger i = new BigInteger(big.length(), random);
+			assertEquals("weight of rank "+i, big.to(i).bitCount(), big.weightOfRank(i));
+		}
+	}
+
+	@Test
+	public void testRowCache() throws ClassNotFoundException {
+		Bankers<Long> expected = new Bankers<Long>(40){};
+		BinomCache<Integer, Binom<Long>> rows = BinomCache.lru(4, BinomCache.ENTRIES);
+		Bankers<Long> bankers = new Bankers<Long>(40, rows){};
+		Random random = new Random(40);
+		for (int t = 0; t < 1000; t++) {
+			long i = random.nextLong() & ((1L << 40) - 1);
+			assertEquals("to "+i, expected.to(i), bankers.to(i));
+			assertEquals("from "+i, expected.from(i), bankers.from(i));
+		}
+		assertSame(rows, bankers.getRowCache());
+		assertTrue(rows.size() <= 4);
+		assertEquals(2000, rows.getHits() + rows.getMisses());
+		assertTrue(rows.getHits() > 0);
+		assertTrue(rows.getEvictions() > 0);
+	}
+
+	@Test
+	public void testPrewarm() throws ClassNotFoundException {
+		Bankers<BigInteger> expected = new Bankers<BigInteger>(300){};
+		Bankers<BigInteger> bankers = new Bankers<BigInteger>(300){};
+		bankers.prewarm();
+		Random random = new Random(300);
+		for (int t = 0; t < 100; t++) {
+			BigInteger i = new BigInteger(300, random);
+			assertEquals("to "+i, expected.to(i), bankers.to(i));
+		}
+	}
+
+	@Test
+	public void testSharedTriangle() throws ClassNotFoundException {
+		assertSame(Binomials.sharedBinomFactory(BigIntegerArithmetic.getInstance()), Binomials.sharedBinomFactory(BigIntegerArithmetic.getInstance()));
+		Bankers<BigInteger> longest = new Bankers<BigInteger>(160){};
+		longest.prewarm();
+		BinomCounter.resetCounter();
+		Random random = new Random(160);
+		for (int n = 10; n < 160; n += 30) {
+			Bankers<BigInteger> bankers = new Bankers<BigInteger>(n){};
+			BigInteger i = new BigInteger(n, random);
+			assertEquals("from to "+i, i, bankers.from(bankers.to(i)));
+		}
+		assertEquals("nodes created by shorter lengths", 0, BinomCounter.getNodeCount());
+	}
+
+	@Test
+	public void testAdaptive() throws ClassNotFoundException {
+		for (int n : new int[] {20, 63, 64, 80, 130}) {
+			Bankers<BigInteger> big = new Bankers<BigInteger>(n){};
+			for (Bankers<Number> adaptive : Arrays.<Bankers<Number>>asList(new Bankers<Number>(n, Binomials.sharedBinomFactory(AdaptiveArithmetic.getInstance())){}, new AdaptiveBankers(n))) {
+				Random random = new Random(n);
+				for (int t = 0; t < 200; t++) {
+					BigInteger i = t == 0 ? BigInteger.ZERO : t == 1 ? BigInteger.ONE.shiftLeft(n).subtract(BigInteger.ONE) : new BigInteger(n, random);
+					BigInteger b = big.to(i);
+					assertEquals("to "+i, AdaptiveArithmetic.valueOf(b), adaptive.to(AdaptiveArithmetic.valueOf(i)));
+					assertEquals("from "+b, AdaptiveArithmetic.valueOf(i), adaptive.from(AdaptiveArithmetic.valueOf(b)));
+					if (i.bitCount() < n)
+						assertEquals("next "+b, AdaptiveArithmetic.valueOf(big.next(b)), adaptive.next(AdaptiveArithmetic.valueOf(b)));
+				}
+				for (int w = 0; w <= n; w++)
+					assertEquals("first rank of "+w, AdaptiveArithmetic.valueOf(big.firstRankOfWeight(w)), adaptive.firstRankOfWeight(w));
+			}
+		}
+	}
 }
@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BankersTranscoderTest {
+
+	/**
+	 * Transcode records random ranks to Banker's numbers, compare each with
+	 * bankers, and back again.
+	 */
+	private <V extends Number> void assertRoundTrip(Bankers<V> bankers, int records) throws IOException {
+		BankersTranscoder<V> transcoder = new BankersTranscoder<V>(bankers);
+		int width = transcoder.getRecordWidth();
+		Random random = new Random(bankers.length());
+		BigInteger[] ranks = new BigInteger[records];
+		ByteBuffer buffer = ByteBuffer.allocate(records * width).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < records; i++) {
+			ranks[i] = new BigInteger(bankers.length(), random);
+			put(buffer, i * width, width, ranks[i]);
+		}
+
+		Path ranksFile = Files.createTempFile("ranks", ".bin");
+		Path bitsFile = Files.createTempFile("bits", ".bin");
+		Path backFile = Files.createTempFile("back", ".bin");
+		try {
+			Files.write(ranksFile, buffer.array());
+			assertEquals(records, transcoder.to(ranksFile, bitsFile));
+			ByteBuffer bits = ByteBuffer.wrap(Files.readAllBytes(bitsFile));
+			assertEquals(records * width, bits.capacity());
+			Bankers<BigInteger> expected = new Bankers<BigInteger>(bankers.length()){};
+			for (int i = 0; i < records; i++)
+				assertEquals("to "+ranks[i], expected.to(ranks[i]), get(bits, i * width, width));
+
+			assertEquals(records, transcoder.from(bitsFile, backFile));
+			assertArrayEquals(buffer.array(), Files.readAllBytes(backFile));
+		} catch (ClassNotFoundException e) {
+			fail(e.getMessage());
+		} finally {
+			Files.delete(ranksFile);
+			Files.delete(bitsFile);
+			Files.delete(backFile);
+		}
+	}
+
+	private static void put(ByteBuffer buffer, int index, int width, BigInteger value) {
+		byte[] magnitude = value.toByteArray();
+		for (int i = 0; i < width; i++)
+			buffer.put(index + i, i < magnitude.length ? magnitude[magnitude.length - 1 - i] : 0);
+	}
+
+	private static BigInteger get(ByteBuffer buffer, int index, int width) {
+		byte[] magnitude = new byte[width];
+		for (int i = 0; i < width; i++)
+			magnitude[width - 1 - i] = buffer.get(index + i);
+		return new BigInteger(1, magnitude);
+	}
+
+	@Test
+	public void testInt() throws IOException {
+		assertRoundTrip(new IntBankers(20), 100000);
+	}
+
+	@Test
+	public void testLong() throws IOException {
+		assertRoundTrip(new LongBankers(40), 100000);
+	}
+
+	@Test
+	public void testBigInteger() throws IOException, ClassNotFoundException {
+		assertRoundTrip(new Bankers<BigInteger>(100){}, 20000);
+	}
+
+	@Test
+	public void testLimbs() throws IOException {
+		assertRoundTrip(new LimbsBankers(130), 5000);
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		Path in = Files.createTempFile("ranks", ".bin");
+		Path out = Files.createTempFile("bits", ".bin");
+		try {
+			assertEquals(0, new BankersTranscoder<Long>(new LongBankers(40)).to(in, out));
+			assertEquals(0, Files.size(out));
+		} finally {
+			Files.delete(in);
+			Files.delete(out);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testPartialRecord() throws IOException {
+		Path in = Files.createTempFile("ranks", ".bin");
+		Path out = Files.createTempFile("bits", ".bin");
+		try {
+			Files.write(in, new byte[12]);
+			new BankersTranscoder<Long>(new LongBankers(40)).to(in, out);
+		} finally {
+			Files.delete(in);
+			Files.delete(out);
+		}
+	}
+}
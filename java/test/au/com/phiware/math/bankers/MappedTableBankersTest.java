@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package au.com.phiware.math.bankers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class MappedTableBankersTest {
+
+	@Test
+	public void testSameAsLongBankers() throws IOException {
+		Path path = Files.createTempFile("bankers", ".table");
+		try {
+			for (int n : new int[] {1, 5, 16}) {
+				MappedTableBankers.generate(path, n);
+				assertEquals(n, MappedTableBankers.lengthOf(path));
+				LongBankers expected = new LongBankers(n);
+				try (MappedTableBankers table = new MappedTableBankers(path)) {
+					assertEquals(n, table.length());
+					for (long i = 0; i < 1L << n; i++) {
+						long b = expected.to(i);
+						assertEquals("to "+i, b, table.to(i));
+						assertEquals("from "+b, i, table.from(b));
+					}
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testSharedMapping() throws IOException {
+		Path path = Files.createTempFile("bankers", ".table");
+		try {
+			MappedTableBankers.generate(path, 12);
+			try (MappedTableBankers a = new MappedTableBankers(path);
+			     MappedTableBankers b = new MappedTableBankers(path)) {
+				for (long i = 0; i < 1L << 12; i++)
+					assertEquals("to "+i, a.to(i), b.to(i));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testRange() throws IOException {
+		Path path = Files.createTempFile("bankers", ".table");
+		try {
+			MappedTableBankers.generate(path, 8);
+			try (MappedTableBankers table = new MappedTableBankers(path)) {
+				for (long v : new long[] {-1, 256, Long.MIN_VALUE}) {
+					try {
+						table.to(v);
+						fail("to "+v);
+					} catch (IllegalArgumentException e) {}
+					try {
+						table.from(new long[] {0, v}, new long[2]);
+						fail("from "+v);
+					} catch (IllegalArgumentException e) {}
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testNotATable() throws IOException {
+		Path path = Files.createTempFile("bankers", ".table");
+		try {
+			Files.write(path, new byte[16 + 2 * 4 * 16]);
+			new MappedTableBankers(path).close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testTruncated() throws IOException {
+		Path path = Files.createTempFile("bankers", ".table");
+		try {
+			MappedTableBankers.generate(path, 10);
+			byte[] bytes = Files.readAllBytes(path);
+			Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+			new MappedTableBankers(path).close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * 
+ */
+package au.com.phiware.math.binom;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.ByteArithmetic;
+import au.com.phiware.math.ring.IntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomArrayTest {
+
+	public <V extends Number> void testSameAsGraph(BinomFactory<V> array, BinomFactory<V> graph, int n) {
+		for (int k = 0; k <= n; k++) {
+			Binom<V> expected = graph.createBinom(n, k);
+			Binom<V> binom = array.createBinom(n, k);
+			assertEquals(n + " choose " + k, expected.value(), binom.value());
+			assertEquals("sum "+n+" choose 0..."+k, expected.sum(), binom.sum());
+			assertEquals("Row of " + n + " choose " + k, expected.getRow(), binom.getRow());
+			assertEquals("Column of " + n + " choose " + k, expected.getColumn(), binom.getColumn());
+		}
+	}
+
+	@Test
+	public void testSameAsGraphUpTo40() {
+		for (int n = 0; n <= 31; n++)
+			testSameAsGraph(new BinomArray<Integer>(IntegerArithmetic.getInstance()), new BinomGraph<Integer>(IntegerArithmetic.getInstance()), n);
+		for (int n = 0; n <= 40; n++) {
+			testSameAsGraph(new BinomArray<Long>(LongArithmetic.getInstance()), new BinomGraph<Long>(LongArithmetic.getInstance()), n);
+			testSameAsGraph(new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance()), new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance()), n);
+		}
+		for (int n = 0; n <= 8; n++)
+			testSameAsGraph(new BinomArray<Byte>(ByteArithmetic.getInstance()), new BinomGraph<Byte>(ByteArithmetic.getInstance()), n);
+	}
+
+	@Test
+	public void testReallyBigBinom() {
+		BinomFactory<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+		assertEquals(600 + " choose " + 300, 
+				new BigInteger("135107941996194268514474877978504530397233945449193479925965721786474150408005716961950480198274469818673334131365837249043900490761151591695308427048536947621976068789875968372656"),
+				array.createBinom(600, 300).value());
+	}
+
+	@Test
+	public void testCursor() {
+		BinomFactory<Long> array = new BinomArray<Long>(LongArithmetic.getInstance());
+		for (int n = 2; n <= 10; n++)
+		for (int k = 1; k < n; k++) {
+			Binom<Long> binom = array.createBinom(n, k);
+			BinomCursor<Long> cursor = binom.cursor();
+			assertTrue(cursor.moveDown());
+			assertEquals((n - 1) + " choose " + k, binom.down().value(), cursor.value());
+			assertTrue(cursor.moveBack());
+			assertEquals((n - 2) + " choose " + (k - 1), binom.down().back().value(), cursor.value());
+			assertTrue(cursor.moveUp());
+			assertTrue(cursor.moveRight());
+			assertEquals((n - 1) + " choose " + k, binom.down().value(), cursor.value());
+			assertTrue(cursor.moveNext());
+			assertTrue(cursor.moveLeft());
+			assertEquals(n + " choose " + k, binom.value(), cursor.value());
+			assertEquals("Row of " + n + " choose " + k, n, cursor.getRow());
+			assertEquals("Column of " + n + " choose " + k, k, cursor.getColumn());
+		}
+		BinomCursor<Long> cursor = array.createBinom(3, 0).cursor();
+		assertFalse(cursor.moveBack());
+		assertFalse(cursor.moveLeft());
+		cursor = array.createBinom(3, 3).cursor();
+		assertFalse(cursor.moveDown());
+		assertFalse(cursor.moveRight());
+		assertEquals("Row of 3 choose 3", 3, cursor.getRow());
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		Path path = Files.createTempFile("binom", ".snapshot");
+		try {
+			BinomArray<Long> saved = new BinomArray<Long>(LongArithmetic.getInstance());
+			saved.save(path, 66);
+			BinomArray<Long> array = new BinomArray<Long>(LongArithmetic.getInstance());
+			assertEquals(66, array.load(path));
+			for (int n = 0; n <= 66; n++)
+				for (int k = 0; k <= n; k++)
+					assertEquals(n + " choose " + k, saved.createBinom(n, k).value(), array.createBinom(n, k).value());
+			try {
+				new BinomArray<Integer>(IntegerArithmetic.getInstance()).load(path);
+				fail("loaded 64 bit values as 32 bit");
+			} catch (IOException expected) {}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testChoose() {
+		BinomFactory<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+		for (int n = 0; n <= 300; n++)
+			for (int k = 0; k <= n; k++)
+				assertEquals(n + " choose " + k, array.createBinom(n, k).value(), Binomials.choose(n, k));
+		BigInteger expected = BigInteger.ONE;
+		for (int k = 0; k < 5000; k++)
+			expected = expected.multiply(BigInteger.valueOf(100000 - k)).divide(BigInteger.valueOf(k + 1));
+		assertEquals("100000 choose 5000", expected, Binomials.choose(100000, 5000));
+		BigInteger central = Binomials.choose(1000000, 500000);
+		assertEquals(999990, central.bitLength());
+		assertEquals("2m choose m = 2 (2m - 1 choose m - 1)", central, Binomials.choose(999999, 499999).shiftLeft(1));
+	}
+}
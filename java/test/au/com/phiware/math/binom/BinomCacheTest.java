@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomCacheTest {
+
+	@Test
+	public void testLru() {
+		BinomCache<Integer, String> cache = BinomCache.lru(3, BinomCache.ENTRIES);
+		for (int i = 0; i < 3; i++)
+			assertNull(cache.putIfAbsent(i, "v"+i));
+		assertEquals("v0", cache.get(0));
+		assertNull(cache.putIfAbsent(3, "v3"));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull("least recently used", cache.get(1));
+		assertEquals("v0", cache.get(0));
+		assertEquals("v3", cache.putIfAbsent(3, "w3"));
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testLfu() {
+		BinomCache<Integer, String> cache = BinomCache.lfu(8, BinomCache.ENTRIES);
+		for (int i = 0; i < 8; i++)
+			cache.putIfAbsent(i, "v"+i);
+		for (int i = 0; i < 8; i += 2)
+			for (int j = 0; j < 3; j++)
+				cache.get(i);
+		cache.putIfAbsent(8, "v8");
+		assertTrue(cache.size() <= 7);
+		assertTrue(cache.getEvictions() >= 2);
+		for (int i = 0; i < 8; i += 2)
+			assertEquals("frequently used", "v"+i, cache.get(i));
+	}
+
+	@Test
+	public void testHotEntry() {
+		for (BinomCache<Integer, String> cache : BinomCacheTest.<Integer, String>bounded(4)) {
+			cache.putIfAbsent(-1, "hot");
+			for (int i = 0; i < 1000; i++) {
+				assertEquals("hot", cache.get(-1));
+				cache.putIfAbsent(i, "v"+i);
+				assertTrue(cache.getWeight() <= 4);
+			}
+			assertEquals(cache.size(), cache.getWeight());
+			assertTrue(cache.getEvictions() >= 996);
+		}
+	}
+
+	@Test
+	public void testWeight() {
+		BinomCache<Integer, String> cache = BinomCache.lru(10, new BinomCache.Weigher<String>() {
+			@Override
+			public long weigh(String value) {
+				return value.length();
+			}
+		});
+		cache.putIfAbsent(0, "12345");
+		cache.putIfAbsent(1, "1234");
+		assertEquals(9, cache.getWeight());
+		cache.putIfAbsent(2, "12");
+		assertEquals(6, cache.getWeight());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testPinned() {
+		BinomCache<Integer, String> cache = BinomCache.forPolicy("pinned");
+		for (int i = 0; i < 1000; i++)
+			cache.putIfAbsent(i, "v"+i);
+		assertEquals(1000, cache.size());
+		assertEquals(0, cache.getEvictions());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownPolicy() {
+		BinomCache.forPolicy("mru:10");
+	}
+
+	@Test
+	public void testBoundedGraph() {
+		BinomFactory<BigInteger> pinned = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance(), BinomCache.<Long, Object>pinned());
+		for (BinomCache<Long, Object> cache : BinomCacheTest.<Long, Object>bounded(100)) {
+			BinomGraph<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance(), cache);
+			for (int n = 0; n <= 60; n++)
+				for (int k = 0; k <= n; k++) {
+					assertEquals(n + " choose " + k, pinned.createBinom(n, k).value(), graph.createBinom(n, k).value());
+					assertEquals("sum "+n+" choose 0..."+k, pinned.createBinom(n, k).sum(), graph.createBinom(n, k).sum());
+				}
+			assertSame(cache, graph.getNodeCache());
+			assertTrue(cache.size() <= 100);
+			assertTrue(cache.getEvictions() > 0);
+		}
+		BinomCache<Long, Object> bytes = BinomCache.lru(1 << 14, BinomGraph.NODE_BYTES);
+		BinomGraph<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance(), bytes);
+		assertEquals(pinned.createBinom(200, 100).value(), graph.createBinom(200, 100).value());
+		assertTrue(bytes.getWeight() <= 1 << 14);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static <K, T> BinomCache<K, T>[] bounded(long capacity) {
+		return new BinomCache[] {
+			BinomCache.<K, T>lru(capacity, BinomCache.ENTRIES),
+			BinomCache.<K, T>lfu(capacity, BinomCache.ENTRIES)
+		};
+	}
+}
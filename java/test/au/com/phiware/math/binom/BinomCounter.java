@@ -12,8 +12,28 @@ import java.util.Map;
  */
 public class BinomCounter {
 	private static Map<Integer, Integer> counter;
+	static {
+		Binomials.setMetrics(new BinomMetrics() {
+			@Override
+			public void nodeCreated(int n, int k, long bytes) {
+				increment(n, k);
+			}
+
+			@Override
+			public void nodesCreated(long count, long bytes) {
+			}
+
+			@Override
+			public void rowLookup(boolean hit) {
+			}
+
+			@Override
+			public void operation(Operation operation, int count, long nanos) {
+			}
+		});
+	}
 	
-	public static void increment(Integer n, Integer k) {
+	public static synchronized void increment(Integer n, Integer k) {
 		if (n > 0 && k > 0) {
 			int key = n * (n + 1) / 2 + k;
 			int value = 0;
@@ -25,12 +45,12 @@ public class BinomCounter {
 		}
 	}
 	
-	public static int getNodeCount() {
+	public static synchronized int getNodeCount() {
 		if (counter == null)
 			return 0;
 		return counter.size();
 	}
-	public static boolean hasAllOnes() {
+	public static synchronized boolean hasAllOnes() {
 		if (counter != null)
 			for (int count : counter.values())
 				if (count > 1)
@@ -38,7 +58,7 @@ public class BinomCounter {
 		return true;
 	}
 
-	public static void resetCounter() {
+	public static synchronized void resetCounter() {
 		if (counter != null)
 			counter.clear();
 	}
@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import au.com.phiware.math.bankers.Bankers;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomFileTest {
+
+	@Test
+	public void testSameAsArray() throws IOException {
+		Path path = Files.createTempFile("binom", ".dat");
+		try (BinomFile file = new BinomFile(path, 128)) {
+			BinomArrayTest test = new BinomArrayTest();
+			for (int n = 0; n <= 60; n++)
+				test.testSameAsGraph(file, new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance()), n);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testCursor() throws IOException {
+		Path path = Files.createTempFile("binom", ".dat");
+		try (BinomFile file = new BinomFile(path, 128)) {
+			BinomFactory<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+			for (int n = 2; n <= 40; n++)
+			for (int k = 1; k < n; k++) {
+				BinomCursor<BigInteger> cursor = file.createBinom(n, k).cursor();
+				assertTrue(cursor.moveDown());
+				assertEquals((n - 1) + " choose " + k, array.createBinom(n - 1, k).value(), cursor.value());
+				assertEquals("sum "+(n - 1)+" choose 0..."+k, array.createBinom(n - 1, k).sum(), cursor.sum());
+				assertTrue(cursor.moveBack());
+				assertEquals((n - 2) + " choose " + (k - 1), array.createBinom(n - 2, k - 1).value(), cursor.value());
+				assertTrue(cursor.moveUp());
+				assertTrue(cursor.moveRight());
+				assertEquals((n - 1) + " choose " + k, array.createBinom(n - 1, k).value(), cursor.value());
+				assertTrue(cursor.moveNext());
+				assertTrue(cursor.moveLeft());
+				assertEquals(n + " choose " + k, array.createBinom(n, k).value(), cursor.value());
+			}
+			BinomCursor<BigInteger> cursor = file.createBinom(3, 3).cursor();
+			assertFalse(cursor.moveDown());
+			assertFalse(cursor.moveRight());
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		Path path = Files.createTempFile("binom", ".dat");
+		try {
+			BigInteger expected;
+			try (BinomFile file = new BinomFile(path, 1024)) {
+				assertFalse(file.contains(1000));
+				expected = file.createBinom(1000, 400).value();
+				assertTrue(file.contains(1000));
+			}
+			long size = Files.size(path);
+			try (BinomFile file = new BinomFile(path)) {
+				assertEquals(1024, file.getMaxRows());
+				assertTrue(file.contains(1000));
+				assertEquals(expected, file.createBinom(1000, 400).value());
+				assertEquals(expected, file.createBinom(1000, 600).value());
+			}
+			assertEquals("nothing appended", size, Files.size(path));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testNotABinomFile() throws IOException {
+		Path path = Files.createTempFile("binom", ".dat");
+		try {
+			Files.write(path, "not binomials".getBytes("UTF-8"));
+			new BinomFile(path).close();
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testBankers() throws IOException, ClassNotFoundException {
+		Path path = Files.createTempFile("binom", ".dat");
+		try (BinomFile file = new BinomFile(path, 4096)) {
+			Bankers<BigInteger> expected = new Bankers<BigInteger>(300){};
+			Bankers<BigInteger> bankers = new Bankers<BigInteger>(300, file){};
+			Random random = new Random(300);
+			for (int t = 0; t < 100; t++) {
+				BigInteger i = new BigInteger(300, random);
+				assertEquals("to "+i, expected.to(i), bankers.to(i));
+				assertEquals("from "+i, expected.from(i), bankers.from(i));
+			}
+
+			bankers = new Bankers<BigInteger>(4000, file){};
+			for (int t = 0; t < 10; t++) {
+				BigInteger i = new BigInteger(4000, random);
+				assertEquals("from to "+i, i, bankers.from(bankers.to(i)));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
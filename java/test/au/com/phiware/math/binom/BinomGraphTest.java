@@ -5,7 +5,10 @@ package au.com.phiware.math.binom;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.Test;
 
@@ -257,4 +260,65 @@ public class BinomGraphTest {
 			//assertTrue("Should be efficient at "+n+" choose "+(k + 1), BinomCounter.hasAllOnes());
 		}
 	}
+
+	@Test
+	public void testSumIsMemoized() {
+		BinomFactory<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+		int n = 40;
+		for (int k = 0; k <= n; k++) {
+			BigInteger sum = graph.createBinom(n, k).sum();
+			BinomCounter.resetCounter();
+			assertSame("sum "+n+" choose 0..."+k, sum, graph.createBinom(n, k).sum());
+			assertEquals("nodes created by sum "+n+" choose 0..."+k, 0, BinomCounter.getNodeCount());
+		}
+	}
+
+	@Test
+	public void testDeepBinom() {
+		int n = 100000;
+		Binom<Long> binom = new BinomGraph<Long>(LongArithmetic.getInstance(), n, 2);
+		assertEquals(n + " choose 2", (long) n * (n - 1) / 2, binom.longValue());
+	}
+
+	@Test
+	public void testPrewarm() {
+		int n = 600;
+		BinomFactory<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+		BinomFactory<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+		graph.prewarm(n);
+		array.prewarm(n);
+		BinomCounter.resetCounter();
+		for (int k = 0; k <= n; k += 50)
+			assertEquals(n + " choose " + k, array.createBinom(n, k).value(), graph.createBinom(n, k).value());
+		assertEquals(n + " choose " + 300,
+				new BigInteger("135107941996194268514474877978504530397233945449193479925965721786474150408005716961950480198274469818673334131365837249043900490761151591695308427048536947621976068789875968372656"),
+				graph.createBinom(n, 300).value());
+		assertEquals("nodes created after prewarm", 0, BinomCounter.getNodeCount());
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		int n = 200;
+		Path path = Files.createTempFile("binom", ".snapshot");
+		try {
+			BinomGraph<BigInteger> saved = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+			saved.save(path, n);
+			BinomGraph<BigInteger> graph = new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance());
+			assertEquals(n, graph.load(path));
+			assertEquals((n + 2) * (n + 2) / 4, graph.getNodeCache().size());
+			BinomCounter.resetCounter();
+			for (int m = 0; m <= n; m++)
+				for (int k = 0; k <= m; k++) {
+					assertEquals(m + " choose " + k, saved.createBinom(m, k).value(), graph.createBinom(m, k).value());
+					assertEquals("sum "+m+" choose 0..."+k, saved.createBinom(m, k).sum(), graph.createBinom(m, k).sum());
+				}
+			assertEquals("nodes created after load", 0, BinomCounter.getNodeCount());
+
+			BinomArray<BigInteger> array = new BinomArray<BigInteger>(BigIntegerArithmetic.getInstance());
+			assertEquals(n, array.load(path));
+			assertEquals(n + " choose " + n / 2, saved.createBinom(n, n / 2).value(), array.createBinom(n, n / 2).value());
+		} finally {
+			Files.delete(path);
+		}
+	}
 }
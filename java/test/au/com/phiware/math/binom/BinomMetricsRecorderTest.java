@@ -0,0 +1,98 @@
+/**
+ *
+ */
+package au.com.phiware.math.binom;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import au.com.phiware.math.bankers.Bankers;
+import au.com.phiware.math.bankers.LongBankers;
+import au.com.phiware.math.binom.BinomMetrics.Operation;
+import au.com.phiware.math.ring.BigIntegerArithmetic;
+import au.com.phiware.math.ring.LongArithmetic;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class BinomMetricsRecorderTest {
+
+	@Test
+	public void testRecord() throws JMException {
+		BinomMetrics previous = Binomials.getMetrics();
+		BinomMetricsRecorder recorder = new BinomMetricsRecorder();
+		ObjectName name = recorder.register();
+		try {
+			assertSame(recorder, Binomials.getMetrics());
+
+			BinomGraph<Long> graph = new BinomGraph<Long>(LongArithmetic.getInstance(), 20, 10);
+			graph.value();
+			assertEquals(graph.getNodeCache().size(), recorder.getNodesCreated());
+			assertTrue(recorder.getTriangleBytes() >= 96 * recorder.getNodesCreated());
+
+			LongBankers bankers = new LongBankers(40);
+			long b = 0;
+			for (long i = 0; i < 1000; i++) {
+				b = bankers.to(i * 1000003);
+				assertEquals(i * 1000003, bankers.from(b));
+			}
+			long[] next = new long[500];
+			bankers.next(b, next);
+			assertEquals(1000, recorder.getCount(Operation.TO));
+			assertEquals(1000, recorder.getCount(Operation.FROM));
+			assertEquals(500, recorder.getCount(Operation.NEXT));
+			long total = 0;
+			for (long count : recorder.getLatencies(Operation.TO))
+				total += count;
+			assertEquals(1000, total);
+			assertTrue(recorder.getLatencyQuantile(Operation.TO, 0.5) <= recorder.getLatencyQuantile(Operation.TO, 0.99));
+			assertTrue(recorder.getLatencyQuantile(Operation.TO, 0.5) > 0);
+
+			Bankers<BigInteger> big = new Bankers<BigInteger>(100, new BinomGraph<BigInteger>(BigIntegerArithmetic.getInstance())){};
+			big.to(BigInteger.ONE.shiftLeft(50));
+			big.to(BigInteger.ONE.shiftLeft(50).add(BigInteger.ONE));
+			assertEquals(1, recorder.getRowCacheMisses());
+			assertEquals(1, recorder.getRowCacheHits());
+			BigInteger[] ranks = { BigInteger.ONE, BigInteger.TEN, BigInteger.ONE.shiftLeft(99) };
+			big.to(ranks, new BigInteger[ranks.length]);
+			assertEquals(1000 + 2 + ranks.length, recorder.getCount(Operation.TO));
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(recorder.getToCount(), server.getAttribute(name, "ToCount"));
+			assertEquals(500L, server.getAttribute(name, "NextCount"));
+			assertArrayEquals(recorder.getFromLatencies(), (long[]) server.getAttribute(name, "FromLatencies"));
+			server.invoke(name, "reset", null, null);
+			assertEquals(0, recorder.getToCount());
+			assertEquals(0, recorder.getNodesCreated());
+		} finally {
+			recorder.unregister();
+			Binomials.setMetrics(previous);
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+
+		new LongBankers(40).to(12345);
+		assertEquals(0, recorder.getToCount());
+	}
+
+	@Test
+	public void testQuantile() {
+		BinomMetricsRecorder recorder = new BinomMetricsRecorder();
+		assertEquals(0, recorder.getLatencyQuantile(Operation.FROM, 0.5));
+		recorder.operation(Operation.FROM, 90, 90 * 100);
+		recorder.operation(Operation.FROM, 10, 10 * 5000);
+		assertEquals(128, recorder.getLatencyQuantile(Operation.FROM, 0.5));
+		assertEquals(128, recorder.getLatencyQuantile(Operation.FROM, 0.9));
+		assertEquals(8192, recorder.getLatencyQuantile(Operation.FROM, 0.95));
+		assertEquals(100, recorder.getCount(Operation.FROM));
+		assertEquals(90 * 100 + 10 * 5000, recorder.getNanos(Operation.FROM));
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class AccumulatorTest {
+
+	private static <V extends Number> V random(BitArithmetic<V> a, int bits, Random random) {
+		V v = a.zero();
+		for (int i = random.nextInt(bits + 1); i > 0; i--)
+			v = a.setBit(v, random.nextInt(bits));
+		return v;
+	}
+
+	/**
+	 * Apply random operations to an accumulator and, in turn, to a value of
+	 * its arithmetic, and compare them after each.
+	 */
+	private static <V extends Number> void assertSameAsArithmetic(BitArithmetic<V> a, int bits) {
+		Random random = new Random(bits);
+		Accumulator<V> acc = a.newAccumulator();
+		V v = a.zero();
+		assertEquals("new", v, acc.value());
+		for (int t = 0; t < 10000; t++) {
+			V p = random(a, bits, random);
+			int n = random.nextInt(bits), m = n + random.nextInt(bits - n + 1);
+			boolean small = a.signum(p) >= 0 && a.highestOneBit(p) < Long.SIZE - 1;
+			String op;
+			switch (random.nextInt(11)) {
+			case 0:
+				op = "set";
+				acc.set(p);
+				v = p;
+				break;
+			case 1:
+				op = "setBit";
+				acc.setBit(n);
+				v = a.setBit(v, n);
+				break;
+			case 2:
+				op = "setBits";
+				acc.setBits(n, m);
+				for (int i = n; i < m; i++)
+					v = a.setBit(v, i);
+				break;
+			case 3:
+				op = "clearBits";
+				acc.clearBits(n, m);
+				for (int i = n; i < m; i++)
+					v = a.clearBit(v, i);
+				break;
+			case 4:
+				op = "add";
+				if (small && random.nextBoolean())
+					acc.add(p.longValue());
+				else
+					acc.add(p);
+				v = a.add(v, p);
+				break;
+			case 5:
+				op = "subtract";
+				if (small && random.nextBoolean())
+					acc.subtract(p.longValue());
+				else
+					acc.subtract(p);
+				v = a.subtract(v, p);
+				break;
+			case 6:
+				op = "or";
+				acc.or(p);
+				v = a.or(v, p);
+				break;
+			case 7:
+				op = "and";
+				acc.and(p);
+				v = a.and(v, p);
+				break;
+			case 8:
+				op = "nand";
+				acc.nand(p);
+				v = a.nand(v, p);
+				break;
+			case 9:
+				op = "xor";
+				acc.xor(p);
+				v = a.xor(v, p);
+				break;
+			default:
+				op = "shiftLeft";
+				acc.shiftLeft(n % 4);
+				v = a.shiftLeft(v, n % 4);
+				if (a.highestOneBit(v) >= bits)
+					acc.set(v = a.zero());
+			}
+			String message = op+" "+p+" "+n+" "+m+" to "+v;
+			assertEquals(message, v, acc.value());
+			assertEquals(message, a.testBit(v, n), acc.testBit(n));
+			assertEquals(message, a.highestOneBit(v), acc.highestOneBit());
+			if (a.signum(v) >= 0 && a.signum(p) >= 0)
+				assertEquals(message, Integer.signum(a.compare(v, p)), Integer.signum(acc.compareTo(p)));
+			if (a.signum(v) >= 0 && small)
+				assertEquals(message, Integer.signum(a.compare(v, p)), Integer.signum(acc.compareTo(p.longValue())));
+		}
+	}
+
+	@Test
+	public void testLong() {
+		assertSameAsArithmetic(LongArithmetic.getInstance(), Long.SIZE);
+	}
+
+	@Test
+	public void testInteger() {
+		assertSameAsArithmetic(IntegerArithmetic.getInstance(), Integer.SIZE);
+	}
+
+	@Test
+	public void testByte() {
+		assertSameAsArithmetic(ByteArithmetic.getInstance(), Byte.SIZE);
+	}
+
+	@Test
+	public void testBigInteger() {
+		assertSameAsArithmetic(BigIntegerArithmetic.getInstance(), 200);
+	}
+
+	@Test
+	public void testLimbs() {
+		assertSameAsArithmetic(LimbsArithmetic.getInstance(130), 192);
+	}
+
+	@Test
+	public void testAdaptive() {
+		assertSameAsArithmetic(AdaptiveArithmetic.getInstance(), 130);
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class AdaptiveArithmeticTest {
+
+	private static Number random(Random random) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return (long) random.nextInt();
+		case 1:
+			return random.nextBoolean() ? Long.MAX_VALUE - random.nextInt(3) : Long.MIN_VALUE + random.nextInt(3);
+		case 2:
+			return random.nextLong();
+		default:
+			return AdaptiveArithmetic.valueOf(new BigInteger(random.nextInt(200) + 1, random).subtract(BigInteger.ONE.shiftLeft(100)));
+		}
+	}
+
+	private static void assertValue(String m, BigInteger expected, Number actual) {
+		assertEquals(m, AdaptiveArithmetic.valueOf(expected), actual);
+		assertEquals(m+" is a Long if it fits", expected.bitLength() < Long.SIZE, actual instanceof Long);
+	}
+
+	@Test
+	public void testSameAsBigInteger() {
+		AdaptiveArithmetic a = AdaptiveArithmetic.getInstance();
+		Random random = new Random(80);
+		for (int t = 0; t < 10000; t++) {
+			Number p = random(random), q = random(random);
+			BigInteger x = AdaptiveArithmetic.toBigInteger(p), y = AdaptiveArithmetic.toBigInteger(q);
+			int n = random.nextInt(130);
+			String m = p+" and "+q+" by "+n;
+
+			assertValue(m, x.add(y), a.add(p, q));
+			assertValue(m, x.subtract(y), a.subtract(p, q));
+			assertValue(m, x.multiply(y), a.multiply(p, q));
+			assertValue(m, x.negate(), a.negate(p));
+			assertValue(m, x.and(y), a.and(p, q));
+			assertValue(m, x.or(y), a.or(p, q));
+			assertValue(m, x.xor(y), a.xor(p, q));
+			assertValue(m, x.andNot(y), a.nand(p, q));
+			assertValue(m, x.not(), a.not(p));
+			assertValue(m, x.shiftLeft(n), a.shiftLeft(p, n));
+			assertValue(m, x.shiftRight(n), a.shiftRight(p, n));
+			assertValue(m, x.setBit(n), a.setBit(p, n));
+			assertValue(m, x.clearBit(n), a.clearBit(p, n));
+			assertValue(m, x.flipBit(n), a.flipBit(p, n));
+			assertValue(m, x.gcd(y), a.gcd(p, q));
+			assertEquals(m, x.testBit(n), a.testBit(p, n));
+			assertEquals(m, x.bitCount(), a.bitCount(p));
+			assertEquals(m, x.bitLength() - 1, a.highestOneBit(p));
+			assertEquals(m, x.getLowestSetBit(), a.lowestOneBit(p));
+			assertEquals(m, x.signum(), a.signum(p));
+			assertEquals(m, x.compareTo(y), a.compare(p, q));
+			assertEquals(m, x.toString(16), a.toString(p, 16));
+			if (y.signum() > 0)
+				assertValue(m, x.mod(y), a.mod(p, q));
+		}
+	}
+
+	@Test
+	public void testReverse() {
+		AdaptiveArithmetic a = AdaptiveArithmetic.getInstance();
+		Random random = new Random(64);
+		for (int t = 0; t < 1000; t++) {
+			Number p = random(random);
+			BigInteger x = AdaptiveArithmetic.toBigInteger(p), reverse = BigInteger.ZERO;
+			int width = (x.bitLength() / Long.SIZE + 1) * Long.SIZE;
+			for (int i = 0; i < width; i++)
+				if (x.testBit(width - 1 - i))
+					reverse = reverse.setBit(i);
+			if (reverse.testBit(width - 1))
+				reverse = reverse.subtract(BigInteger.ONE.shiftLeft(width));
+			assertValue(p.toString(), reverse, a.reverse(p));
+		}
+		assertEquals(Long.MIN_VALUE, a.reverse(1L));
+		assertEquals(BigInteger.ONE.shiftLeft(64), a.reverse(BigInteger.ONE.shiftLeft(63)));
+	}
+
+	@Test
+	public void testPromotion() throws ClassNotFoundException {
+		AdaptiveArithmetic a = AdaptiveArithmetic.getInstance();
+		Number max = Long.MAX_VALUE;
+		assertEquals(BigInteger.ONE.shiftLeft(63), a.add(max, a.one()));
+		assertEquals(Long.MAX_VALUE, a.subtract(a.add(max, a.one()), a.one()));
+		assertEquals(BigInteger.ONE.shiftLeft(63), a.setBit(a.zero(), 63));
+		assertEquals(1L << 62, a.setBit(a.zero(), 62));
+		assertSame(BigIntegerArithmetic.getInstance(), ArithmeticFactory.getBitArithmetic(Number.class));
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class LimbsArithmeticTest {
+
+	@Test
+	public void testSameAsBigInteger() {
+		Random random = new Random(4096);
+		for (int length : new int[] {65, 128, 129, 1000}) {
+			LimbsArithmetic a = LimbsArithmetic.getInstance(length);
+			int bits = a.maxBitLength(), width = a.width();
+			BigInteger modulus = BigInteger.ONE.shiftLeft(bits);
+			for (int t = 0; t < 100; t++) {
+				BigInteger x = new BigInteger(random.nextInt(bits) + 1, random),
+				           y = new BigInteger(random.nextInt(bits) + 1, random);
+				int n = random.nextInt(bits);
+				Limbs p = Limbs.valueOf(x, width), q = Limbs.valueOf(y, width);
+				String m = x+" and "+y+" at "+length;
+
+				assertEquals(m, x, p.toBigInteger());
+				assertEquals(m, x.add(y).mod(modulus), a.add(p, q).toBigInteger());
+				assertEquals(m, x.subtract(y).mod(modulus), a.subtract(p, q).toBigInteger());
+				assertEquals(m, x.multiply(y).mod(modulus), a.multiply(p, q).toBigInteger());
+				assertEquals(m, x.negate().mod(modulus), a.negate(p).toBigInteger());
+				assertEquals(m, x.and(y), a.and(p, q).toBigInteger());
+				assertEquals(m, x.or(y), a.or(p, q).toBigInteger());
+				assertEquals(m, x.xor(y), a.xor(p, q).toBigInteger());
+				assertEquals(m, x.andNot(y), a.nand(p, q).toBigInteger());
+				assertEquals(m, x.shiftLeft(n).mod(modulus), a.shiftLeft(p, n).toBigInteger());
+				assertEquals(m, x.shiftRight(n), a.shiftRight(p, n).toBigInteger());
+				assertEquals(m, x.setBit(n), a.setBit(p, n).toBigInteger());
+				assertEquals(m, x.clearBit(n), a.clearBit(p, n).toBigInteger());
+				assertEquals(m, x.flipBit(n), a.flipBit(p, n).toBigInteger());
+				assertEquals(m, x.testBit(n), a.testBit(p, n));
+				assertEquals(m, x.bitCount(), a.bitCount(p));
+				assertEquals(m, x.bitLength() - 1, a.highestOneBit(p));
+				assertEquals(m, x.getLowestSetBit(), a.lowestOneBit(p));
+				assertEquals(m, x.compareTo(y), a.compare(p, q));
+				assertEquals(m, x.gcd(y), a.gcd(p, q).toBigInteger());
+				assertEquals(m, x.pow(3).mod(modulus), a.pow(p, Limbs.valueOf(3, width)).toBigInteger());
+			}
+		}
+	}
+
+	/**
+	 * Operands narrower than the arithmetic, which carry out of their top limb.
+	 */
+	@Test
+	public void testMixedWidths() {
+		LimbsArithmetic a = LimbsArithmetic.getInstance(256);
+		BigInteger modulus = BigInteger.ONE.shiftLeft(256);
+		Random random = new Random(256);
+		for (int t = 0; t < 1000; t++) {
+			int wp = 1 + random.nextInt(4), wq = 1 + random.nextInt(4);
+			BigInteger x = new BigInteger(wp * Long.SIZE, random), y = new BigInteger(wq * Long.SIZE, random);
+			Limbs p = Limbs.valueOf(x, wp), q = Limbs.valueOf(y, wq);
+			String m = x+" and "+y;
+			assertEquals(m, x.multiply(y).mod(modulus), a.multiply(p, q).toBigInteger());
+			assertEquals(m, x.multiply(y).mod(modulus), a.multiply(q, p).toBigInteger());
+		}
+		LimbsArithmetic b = LimbsArithmetic.getInstance(128);
+		assertEquals(new BigInteger("55340232221128654845"),
+				b.multiply(Limbs.valueOf(3, 2), Limbs.valueOf(-1L, 1)).toBigInteger());
+	}
+
+	@Test
+	public void testInPlace() {
+		LimbsArithmetic a = LimbsArithmetic.getInstance(256);
+		Limbs one = a.one(), x = a.copy(one);
+		for (int i = 0; i < 200; i++)
+			x.shiftLeft(1).add(one);
+		assertEquals(BigInteger.ONE.shiftLeft(201).subtract(BigInteger.ONE), x.toBigInteger());
+		assertEquals(201, x.bitCount());
+		x.clearBits(64, 192).setBits(250, 300);
+		assertEquals(201 - 128 + 6, x.bitCount());
+		assertEquals(255, x.highestOneBit());
+		assertEquals(BigInteger.ONE, one.toBigInteger());
+		assertEquals(a.zero(), x.subtract(x));
+	}
+
+	@Test
+	public void testWidths() throws ClassNotFoundException {
+		assertEquals(2, LimbsArithmetic.getInstance(65).width());
+		assertEquals(2, LimbsArithmetic.getInstance(128).width());
+		assertEquals(64, LimbsArithmetic.getInstance(4096).width());
+		assertEquals(3, ((LimbsArithmetic) ArithmeticFactory.getBitArithmetic(Limbs.class, 129)).width());
+		assertEquals(4096, ArithmeticFactory.getBitArithmetic(Limbs.class).maxBitLength());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLong() {
+		LimbsArithmetic.getInstance(4097);
+	}
+}
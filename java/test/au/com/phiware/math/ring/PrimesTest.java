@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package au.com.phiware.math.ring;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * @author Corin Lawson <me@corinlawson.com.au>
+ *
+ */
+public class PrimesTest {
+
+	@Test
+	public void testSieve() {
+		assertArrayEquals(new int[0], Primes.sieve(1));
+		assertArrayEquals(new int[] {2, 3, 5, 7, 11, 13, 17, 19, 23, 29}, Primes.sieve(30));
+		assertEquals(78498, Primes.sieve(1000000).length);
+	}
+
+	@Test
+	public void testFactorLong() {
+		Random random = new Random(64);
+		for (int t = 0; t < 1000; t++) {
+			long a = random.nextLong() >> random.nextInt(63);
+			if (a == 0)
+				continue;
+			long[] factors = Primes.factor(a);
+			long product = 1;
+			for (long p : factors) {
+				assertTrue(p+" of "+a, BigInteger.valueOf(p).isProbablePrime(100));
+				product *= p;
+			}
+			assertEquals("product of the factors of "+a, Math.abs(a), product);
+		}
+		long p = 2147483647L, q = 2147483629L;
+		assertArrayEquals(new long[] {q, p}, Primes.factor(p * q));
+		assertArrayEquals(new long[] {2, 2, 3}, Primes.factor(-12));
+		assertArrayEquals(new long[0], Primes.factor(1));
+	}
+
+	@Test
+	public void testFactorBigInteger() {
+		BigInteger p = BigInteger.valueOf(1000000007), q = new BigInteger("1000000000039");
+		BigInteger a = p.multiply(p).multiply(q).shiftLeft(5).multiply(BigInteger.valueOf(3 * 65537));
+		BigInteger[] factors = BigIntegerArithmetic.getInstance().primeFactorization(a);
+		BigInteger product = BigInteger.ONE;
+		for (BigInteger f : factors)
+			product = product.multiply(f);
+		assertEquals(a, product);
+		assertEquals(Arrays.asList(BigInteger.valueOf(2), BigInteger.valueOf(2), BigInteger.valueOf(2), BigInteger.valueOf(2), BigInteger.valueOf(2),
+				BigInteger.valueOf(3), BigInteger.valueOf(65537), p, p, q), Arrays.asList(factors));
+	}
+
+	@Test
+	public void testFactors() {
+		assertEquals(new TreeSet<Long>(Arrays.asList(1L, 2L, 3L, 4L, 6L, 12L)), LongArithmetic.getInstance().factors(12L));
+		assertEquals(new TreeSet<Integer>(Arrays.asList(1, 2, 4, 5, 10, 20, 25, 50, 100)), IntegerArithmetic.getInstance().factors(-100));
+		assertEquals(new TreeSet<Byte>(Arrays.asList((byte) 1, (byte) 7)), ByteArithmetic.getInstance().factors((byte) 7));
+		assertArrayEquals(new Integer[] {2, 2, 5, 5}, IntegerArithmetic.getInstance().primeFactorization(100));
+		Set<BigInteger> factors = BigIntegerArithmetic.getInstance().factors(BigInteger.valueOf(360));
+		assertEquals(24, factors.size());
+		for (BigInteger d : factors)
+			assertEquals(d+" divides 360", 0, BigInteger.valueOf(360).mod(d).signum());
+		LimbsArithmetic limbs = LimbsArithmetic.getInstance(128);
+		assertEquals(24, limbs.factors(Limbs.valueOf(360, limbs.width())).size());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testFactorZero() {
+		LongArithmetic.getInstance().primeFactorization(0L);
+	}
+}